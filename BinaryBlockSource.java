@@ -0,0 +1,146 @@
+/* BinaryBlockSource.java
+ *
+ * Created October 17, 2026
+ *
+ * This class reads the blocks of a binary trace (see BinaryTrace)
+ * straight from its records, which are mapped into memory, so a
+ * trace that was converted once loads without decoding or copying
+ * any of it.  Each record is the command block of its command; the
+ * other blocks are derived from it when they are drawn, as in a
+ * store that keeps only the commands.  Only a trace flagged
+ * F_SORTED is read this way, its records are in the transaction
+ * start order the diagram keeps its blocks in.
+ *
+ * It is a BlockSource, not a BlockStore, so nothing can add to it or
+ * change it; the diagram adds to the end of it through a
+ * SegmentedBlockStore.  The indexes of a trace too large for the
+ * heap are kept in a PageFile of their own.
+ */
+
+// include needed packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+public class BinaryBlockSource extends BlockSource {
+
+    // records mapped at once, 256 MB of them
+    final static int WINDOW_SHIFT = 23;
+    final static int WINDOW_RECORDS = 1<<WINDOW_SHIFT;
+    final static int WINDOW_MASK = WINDOW_RECORDS-1;
+
+    private MappedByteBuffer[] windows; // the records of the trace
+    private long size;                  // number of records
+    private PageFile pages;             // for the indexes, if off heap
+
+    public BinaryBlockSource(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel ch = raf.getChannel();
+            size = BinaryTrace.numRecords(ch);
+            int n = (int)((size+WINDOW_MASK) >>> WINDOW_SHIFT);
+            windows = new MappedByteBuffer[n];
+            for (int w=0;w<n;w++) {
+                long first = (long)w << WINDOW_SHIFT;
+                long records = Math.min(WINDOW_RECORDS, size-first);
+                windows[w] = ch.map(FileChannel.MapMode.READ_ONLY,
+                        BinaryTrace.HEADER_SIZE+first*BinaryTrace.RECORD_SIZE,
+                        records*BinaryTrace.RECORD_SIZE);
+            }
+        } finally {
+            // the mappings stay after the file is closed
+            raf.close();
+        }
+        commandsOnly = true;
+        if (BlockStore.isOffHeap(size))
+            pages = new PageFile();
+    }
+
+    /* a store the blocks can be copied into */
+    public BlockStore newStore(long capacity) {
+        BlockStore s = BlockStore.isOffHeap(capacity) ?
+                new MappedBlockStore() :
+                new HeapBlockStore((int)Math.min(capacity,
+                        HeapBlockStore.MAX_CAPACITY));
+        s.setCommandsOnly(commandsOnly);
+        s.setTiming(timing);
+        return s;
+    }
+
+    /* drops the mappings, which go away once they are garbage
+       collected */
+    public void close() {
+        windows = new MappedByteBuffer[0];
+        size = 0;
+        if (pages != null)
+            pages.close();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isOffHeap() {
+        return true;
+    }
+
+    // the records hold nothing but the commands
+    public boolean isCommandsOnlyAlways() {
+        return true;
+    }
+
+    public PageFile getPageFile() {
+        return pages;
+    }
+
+    // where a field of record i is in its window
+    private static int at(long i, int field) {
+        return (int)(i & WINDOW_MASK)*BinaryTrace.RECORD_SIZE+field;
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public int getID(long i) {
+        return windows[(int)(i >>> WINDOW_SHIFT)].getInt(
+                at(i, BinaryTrace.R_TRANS_ID));
+    }
+
+    public int getKind(long i) {
+        return BlockKind.getFirstKind(windows[(int)(i >>> WINDOW_SHIFT)].get(
+                at(i, BinaryTrace.R_TYPE)));
+    }
+
+    public double getTransactionStartTime(long i) {
+        return windows[(int)(i >>> WINDOW_SHIFT)].getDouble(
+                at(i, BinaryTrace.R_TIME));
+    }
+
+    public int getRank(long i) {
+        return windows[(int)(i >>> WINDOW_SHIFT)].getInt(
+                at(i, BinaryTrace.R_RANK));
+    }
+
+    public int getBank(long i) {
+        return windows[(int)(i >>> WINDOW_SHIFT)].getInt(
+                at(i, BinaryTrace.R_BANK));
+    }
+
+    public int getRow(long i) {
+        return windows[(int)(i >>> WINDOW_SHIFT)].getInt(
+                at(i, BinaryTrace.R_ROW));
+    }
+
+    public int getCol(long i) {
+        return windows[(int)(i >>> WINDOW_SHIFT)].getInt(
+                at(i, BinaryTrace.R_COL));
+    }
+
+    public int getChannel(long i) {
+        return windows[(int)(i >>> WINDOW_SHIFT)].get(
+                at(i, BinaryTrace.R_CHANNEL)) & 0xff;
+    }
+}
@@ -0,0 +1,150 @@
+/* BinaryTrace.java
+ *
+ * Created October 17, 2026
+ *
+ * This class describes the binary trace format written by
+ * BinaryTraceWriter and read by BinaryTraceReader.  The file
+ * is a 32 byte header followed by fixed size records, one per
+ * command, so a trace can be memory mapped and read without
+ * decoding any text.
+ *
+ * Header (version 1):
+ *     0  int    magic number "VTRC"
+ *     4  int    format version
+ *     8  int    record size in bytes
+ *    12  int    flags, F_SORTED
+ *    16  long   number of records, -1 while still being written
+ *    24  int    number of channels, 0 in older files for 1
+ *    28  int    reserved
+ *
+ * Record (version 1):
+ *     0  double time (ns)
+ *     8  int    transaction ID
+ *    12  int    rank
+ *    16  int    bank
+ *    20  int    row
+ *    24  int    column
+ *    28  byte   command type (VisTool.ROWACT ... TFAWCONFLICT)
+ *    29  byte   channel
+ *    30  short  reserved
+ *
+ * A trace whose records are all known commands in time order is
+ * flagged F_SORTED by its writer.  Such a trace is not decoded at
+ * all when it is loaded: a BinaryBlockSource reads the blocks of its
+ * commands straight from the mapped records.
+ */
+
+// include needed packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+public class BinaryTrace {
+
+    final static int MAGIC = 0x56545243;   // "VTRC"
+    final static int VERSION = 1;
+    final static int HEADER_SIZE = 32;
+    final static int RECORD_SIZE = 32;
+
+    // header fields
+    final static int H_MAGIC = 0;
+    final static int H_VERSION = 4;
+    final static int H_RECORD_SIZE = 8;
+    final static int H_FLAGS = 12;
+    final static int H_COUNT = 16;
+    final static int H_CHANNELS = 24;
+
+    // header flags
+    final static int F_SORTED = 1;  // known commands, in time order
+
+    // record fields
+    final static int R_TIME = 0;
+    final static int R_TRANS_ID = 8;
+    final static int R_RANK = 12;
+    final static int R_BANK = 16;
+    final static int R_ROW = 20;
+    final static int R_COL = 24;
+    final static int R_TYPE = 28;
+    final static int R_CHANNEL = 29;
+
+    // file name extension used by the converter
+    final static String EXTENSION = ".vtb";
+
+    /* does the file start with the binary trace magic number? */
+    public static boolean isBinary(FileChannel ch) throws IOException {
+        if (ch.size() < HEADER_SIZE)
+            return false;
+        ByteBuffer buf = ByteBuffer.allocate(4);
+        ch.read(buf, H_MAGIC);
+        return buf.getInt(0) == MAGIC;
+    }
+
+    /* reads the header and returns the number of complete records.
+       A trace whose writer never finished is read up to its last
+       complete record. */
+    public static long numRecords(FileChannel ch) throws IOException {
+        ByteBuffer buf = readHeader(ch);
+        long inFile = (ch.size()-HEADER_SIZE)/RECORD_SIZE;
+        long count = buf.getLong(H_COUNT);
+        if (count < 0 || count > inFile)
+            count = inFile;
+        return count;
+    }
+
+    /* the number of memory channels the records are on */
+    public static int numChannels(FileChannel ch) throws IOException {
+        return Math.max(1, readHeader(ch).getInt(H_CHANNELS));
+    }
+
+    /* can the records be read as blocks without decoding them?
+       Only a trace that was written to the end is. */
+    public static boolean isSorted(FileChannel ch) throws IOException {
+        ByteBuffer buf = readHeader(ch);
+        return (buf.getInt(H_FLAGS) & F_SORTED) != 0 &&
+                buf.getLong(H_COUNT) >= 0;
+    }
+
+    /* reads and checks the header */
+    static ByteBuffer readHeader(FileChannel ch) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, buf.position()) <= 0)
+                throw new IOException("Binary trace header is truncated.");
+        }
+        if (buf.getInt(H_MAGIC) != MAGIC)
+            throw new IOException("Not a binary trace.");
+        if (buf.getInt(H_VERSION) != VERSION ||
+                buf.getInt(H_RECORD_SIZE) != RECORD_SIZE)
+            throw new IOException("Unsupported binary trace version "+
+                    buf.getInt(H_VERSION)+".");
+        return buf;
+    }
+
+    /* offset just past the last record */
+    public static long recordsEnd(FileChannel ch) throws IOException {
+        return HEADER_SIZE+numRecords(ch)*RECORD_SIZE;
+    }
+
+    /* splits the records between start and end into n pieces
+       which all begin on a record */
+    static long[] splitRecords(long start, long end, int n) {
+        long count = (end-start)/RECORD_SIZE;
+        long[] bounds = new long[n+1];
+        for (int i=0;i<=n;i++)
+            bounds[i] = start+(count*i/n)*RECORD_SIZE;
+        return bounds;
+    }
+
+    /* builds the header for a trace holding count records on
+       the given number of channels */
+    static ByteBuffer header(long count, int channels, int flags) {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE);
+        buf.putInt(H_MAGIC, MAGIC);
+        buf.putInt(H_VERSION, VERSION);
+        buf.putInt(H_RECORD_SIZE, RECORD_SIZE);
+        buf.putInt(H_FLAGS, flags);
+        buf.putLong(H_COUNT, count);
+        buf.putInt(H_CHANNELS, channels);
+        return buf;
+    }
+}
@@ -0,0 +1,80 @@
+/* BinaryTraceReader.java
+ *
+ * Created October 17, 2026
+ *
+ * This class reads the commands of a binary trace (see
+ * BinaryTrace) from a memory mapped file.  Every field sits at
+ * a fixed offset in its record, so nothing has to be parsed.
+ */
+
+// include needed packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+public class BinaryTraceReader extends TraceDecoder {
+
+    public BinaryTraceReader(CommandSink s, double start, double end,
+            int maxErr) {
+        super(s, start, end, maxErr);
+    }
+
+    /* the records start after the header */
+    public long firstCommand(FileChannel ch) throws IOException {
+        return BinaryTrace.HEADER_SIZE;
+    }
+
+    /* reads the records between two byte offsets of the file */
+    public void parseRange(FileChannel ch, long start, long end)
+            throws IOException {
+        final int size = BinaryTrace.RECORD_SIZE;
+        end = Math.min(end, BinaryTrace.recordsEnd(ch));
+        long count = (end-start)/size;
+        long perWindow = MAP_WINDOW/size;
+        long p = start;
+
+        while (count > 0 && !aborted && !cancelled) {
+            int n = (int)Math.min(perWindow, count);
+            MappedByteBuffer buf =
+                    ch.map(FileChannel.MapMode.READ_ONLY, p, (long)n*size);
+
+            for (int i=0;i<n && !aborted;i++) {
+                int r = i*size;
+                lineNum++;
+                lineOffset = p+r;
+
+                double time = buf.getDouble(r+BinaryTrace.R_TIME);
+                int type = buf.get(r+BinaryTrace.R_TYPE);
+                if (time < startTime || time > endTime) {
+                    numSkipped++;
+                } else if (type < VisTool.ROWACT ||
+                        type > VisTool.TFAWCONFLICT) {
+                    error(ErrorReport.UNSUPPORTED_COMMAND,
+                            "Command type "+type+" not supported");
+                } else {
+                    sink.addCommand(time, type,
+                            buf.getInt(r+BinaryTrace.R_TRANS_ID),
+                            buf.getInt(r+BinaryTrace.R_RANK),
+                            buf.getInt(r+BinaryTrace.R_BANK),
+                            buf.getInt(r+BinaryTrace.R_ROW),
+                            buf.getInt(r+BinaryTrace.R_COL),
+                            buf.get(r+BinaryTrace.R_CHANNEL) & 0xff);
+                    numCommands++;
+                }
+
+                // publish progress and look for a cancel now and then
+                if (lineNum % PROGRESS_LINES == 0) {
+                    bytesDone = p-start+r+size;
+                    commandsDone = numCommands;
+                    if (cancelled)
+                        return;
+                }
+            }
+            p = p+(long)n*size;
+            count = count-n;
+        }
+        if (!cancelled)
+            bytesDone = p-start;
+        commandsDone = numCommands;
+    }
+}
@@ -0,0 +1,386 @@
+/* BinaryTraceWriter.java
+ *
+ * Created October 17, 2026
+ *
+ * This class writes commands to a binary trace (see
+ * BinaryTrace).  It is a CommandSink, so a text trace is
+ * converted by streaming it through a TraceParser into it.
+ * Several text traces, one per memory channel, are written into
+ * one binary trace with the channel of each command in its record.
+ *
+ * When the commands were not in time order, which the traces of
+ * several channels never are, the records are sorted by time when
+ * the writer is closed, so the trace is flagged F_SORTED and can be
+ * loaded without decoding it.  Each text trace is a run of records
+ * in time order, and the runs are merged into a new file a buffer
+ * at a time, the way the chunks of a load are merged.  Records in
+ * no order at all are first sorted a block at a time into runs.
+ */
+
+// include needed packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+public class BinaryTraceWriter implements CommandSink {
+
+    // records buffered before they are written
+    final static int BUFFERED_RECORDS = 1<<15;
+    // runs in time order merged as they are, with more the
+    // records are sorted into blocks first
+    final static int MAX_RUNS = 1<<10;
+    // records sorted on the heap at a time
+    final static int SORT_RECORDS = 1<<20;
+    // bytes read ahead for all the runs being merged
+    final static int MERGE_BUFFER_BYTES = 1<<25;
+
+    private File file;
+    private RandomAccessFile raf;
+    private FileChannel ch;
+    private ByteBuffer buf;      // records not yet written
+    private long count;          // records written so far
+    private IOException failure; // first write error, thrown by close()
+    private int channel;         // of the text trace being written
+    private int numChannels = 1; // highest channel written, plus one
+    private boolean sorted = true; // known commands in time order
+    private boolean known = true;  // only known commands
+    private double lastTime = Double.NEGATIVE_INFINITY;
+
+    // where each run of records in time order starts, past
+    // MAX_RUNS only their number is counted
+    private long[] runs = new long[16];
+    private int numRuns = 1;
+    private double runTime = Double.NEGATIVE_INFINITY;
+
+    // lines the parser could not decode
+    private ErrorReport report = new ErrorReport();
+
+    public BinaryTraceWriter(File file) throws IOException {
+        this.file = file;
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        ch = raf.getChannel();
+
+        // the count is filled in by close()
+        writeFully(ch, BinaryTrace.header(-1, 1, 0), 0);
+        buf = ByteBuffer.allocateDirect(
+                BUFFERED_RECORDS*BinaryTrace.RECORD_SIZE);
+    }
+
+    /* converts a text trace into a binary one and returns the
+       writer, which holds the number of records and errors */
+    public static BinaryTraceWriter convert(File text, File binary)
+            throws IOException {
+        return convert(new File[] {text}, binary);
+    }
+
+    /* converts text traces, one per channel, into one binary trace */
+    public static BinaryTraceWriter convert(File[] text, File binary)
+            throws IOException {
+        BinaryTraceWriter writer = new BinaryTraceWriter(binary);
+        try {
+            for (int c=0;c<text.length;c++) {
+                TraceParser parser = new TraceParser(writer,
+                        Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                        -1);
+                writer.setChannel(c);
+                parser.parseFile(text[c]);
+            }
+        } finally {
+            writer.close();
+        }
+        return writer;
+    }
+
+    /* the channel of the commands written from now on, the channel
+       a command is on within its trace is added to it */
+    public void setChannel(int c) {
+        channel = c;
+    }
+
+    public void addCommand(double time, int type, int transID,
+            int rank, int bank, int row, int col, int chan) {
+        if (failure != null)
+            return;
+
+        // only a trace of known commands in time order can be
+        // read without decoding it
+        int c = channel+chan;
+        if (time < lastTime)
+            sorted = false;
+        if (time < runTime) {
+            if (numRuns < MAX_RUNS)
+                runs[numRuns] = count;
+            numRuns++;
+            if (numRuns == runs.length && numRuns < MAX_RUNS) {
+                long[] r = new long[2*runs.length];
+                System.arraycopy(runs, 0, r, 0, numRuns);
+                runs = r;
+            }
+        }
+        runTime = time;
+        if (type < VisTool.ROWACT || type > VisTool.TFAWCONFLICT)
+            known = false;
+        lastTime = Math.max(lastTime, time);
+        numChannels = Math.max(numChannels, c+1);
+        put(time, type, transID, rank, bank, row, col, c);
+    }
+
+    // buffers the record of a command
+    private void put(double time, int type, int transID,
+            int rank, int bank, int row, int col, int c) {
+        if (buf.remaining() < BinaryTrace.RECORD_SIZE)
+            flush();
+        int r = buf.position();
+        buf.putDouble(r+BinaryTrace.R_TIME, time);
+        buf.putInt(r+BinaryTrace.R_TRANS_ID, transID);
+        buf.putInt(r+BinaryTrace.R_RANK, rank);
+        buf.putInt(r+BinaryTrace.R_BANK, bank);
+        buf.putInt(r+BinaryTrace.R_ROW, row);
+        buf.putInt(r+BinaryTrace.R_COL, col);
+        buf.put(r+BinaryTrace.R_TYPE, (byte)type);
+        buf.put(r+BinaryTrace.R_CHANNEL, (byte)c);
+        buf.putShort(r+BinaryTrace.R_CHANNEL+1, (short)0);
+        buf.position(r+BinaryTrace.RECORD_SIZE);
+        count++;
+    }
+
+    public void parseError(long lineNum, int kind, String message,
+            String text) {
+        report.add(lineNum, kind, message, text);
+    }
+
+    /* writes the buffered records */
+    private void flush() {
+        buf.flip();
+        try {
+            long at = BinaryTrace.HEADER_SIZE+
+                    (count-buf.remaining()/BinaryTrace.RECORD_SIZE)*
+                    BinaryTrace.RECORD_SIZE;
+            writeFully(ch, buf, at);
+        } catch (IOException ioe) {
+            failure = ioe;
+        }
+        buf.clear();
+    }
+
+    private static void writeFully(FileChannel c, ByteBuffer b, long at)
+            throws IOException {
+        while (b.hasRemaining())
+            at = at+c.write(b, at);
+    }
+
+    private void readFully(ByteBuffer b, long at) throws IOException {
+        while (b.hasRemaining()) {
+            int n = ch.read(b, at);
+            if (n < 0)
+                throw new EOFException(file.getPath());
+            at = at+n;
+        }
+    }
+
+    /* writes the records again in time order.  The runs are
+       merged into a new file next to the trace, which then takes
+       its place. */
+    private void sortRecords() throws IOException {
+        long[] starts = runs;
+        int k = numRuns;
+        if (numRuns > MAX_RUNS) {
+            sortBlocks();
+            k = (int)((count+SORT_RECORDS-1)/SORT_RECORDS);
+            starts = new long[k];
+            for (int i=0;i<k;i++)
+                starts[i] = (long)i*SORT_RECORDS;
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        File merged = File.createTempFile("vistool", ".vtb", dir);
+        RandomAccessFile out = new RandomAccessFile(merged, "rw");
+        boolean done = false;
+        try {
+            mergeRuns(starts, k, out.getChannel());
+            out.close();
+            raf.close();
+            // renameTo does not replace a file everywhere
+            if (!file.delete() || !merged.renameTo(file))
+                throw new IOException("Cannot replace "+file.getPath());
+            done = true;
+        } finally {
+            out.close();
+            if (!done)
+                merged.delete();
+        }
+        raf = new RandomAccessFile(file, "rw");
+        ch = raf.getChannel();
+        sorted = true;
+    }
+
+    /* sorts the records a block of SORT_RECORDS at a time, in
+       place, so each block is a run in time order */
+    private void sortBlocks() throws IOException {
+        int size = BinaryTrace.RECORD_SIZE;
+        int n = (int)Math.min(count, SORT_RECORDS);
+        ByteBuffer block = ByteBuffer.allocate(n*size);
+        ByteBuffer sortedBlock = ByteBuffer.allocate(n*size);
+        double[] keys = new double[n];
+        int[] order = new int[n];
+        int[] tmp = new int[n];
+        for (long first=0;first<count;first=first+n) {
+            int m = (int)Math.min(n, count-first);
+            long at = BinaryTrace.HEADER_SIZE+first*size;
+            block.clear();
+            block.limit(m*size);
+            readFully(block, at);
+            for (int i=0;i<m;i++) {
+                keys[i] = block.getDouble(i*size+BinaryTrace.R_TIME);
+                order[i] = i;
+            }
+            BlockStore.mergeSort(order, tmp, 0, m, keys);
+
+            sortedBlock.clear();
+            for (int i=0;i<m;i++)
+                sortedBlock.put(block.array(), order[i]*size, size);
+            sortedBlock.flip();
+            writeFully(ch, sortedBlock, at);
+        }
+    }
+
+    /* merges the k runs of records that start at starts into out.
+       Runs with records at the same time keep the order they were
+       written in. */
+    private void mergeRuns(long[] starts, int k, FileChannel out)
+            throws IOException {
+        int records = Math.max(64, MERGE_BUFFER_BYTES/
+                BinaryTrace.RECORD_SIZE/k);
+        Run[] run = new Run[k];
+        int[] heap = new int[k];
+        int n = 0;
+        for (int i=0;i<k;i++) {
+            long end = (i+1 < k) ? starts[i+1] : count;
+            run[i] = new Run(starts[i], end, records);
+            if (!run[i].isEmpty())
+                heap[n++] = i;
+        }
+        for (int i=n/2-1;i>=0;i--)
+            siftDown(heap, n, i, run);
+
+        writeFully(out, BinaryTrace.header(-1, 1, 0), 0);
+        long at = BinaryTrace.HEADER_SIZE;
+        ByteBuffer b = ByteBuffer.allocateDirect(
+                BUFFERED_RECORDS*BinaryTrace.RECORD_SIZE);
+        while (n > 0) {
+            if (!b.hasRemaining()) {
+                b.flip();
+                writeFully(out, b, at);
+                at = at+b.capacity();
+                b.clear();
+            }
+            Run r = run[heap[0]];
+            r.take(b);
+            if (r.isEmpty())
+                heap[0] = heap[--n];
+            siftDown(heap, n, 0, run);
+        }
+        b.flip();
+        writeFully(out, b, at);
+    }
+
+    private void siftDown(int[] heap, int n, int i, Run[] run) {
+        while (true) {
+            int l = 2*i+1;
+            if (l >= n)
+                return;
+            int m = l;
+            if (l+1 < n && before(heap[l+1], heap[l], run))
+                m = l+1;
+            if (!before(heap[m], heap[i], run))
+                return;
+            int t = heap[i];
+            heap[i] = heap[m];
+            heap[m] = t;
+            i = m;
+        }
+    }
+
+    // does the next record of run a go before that of run b?
+    private boolean before(int a, int b, Run[] run) {
+        double ta = run[a].time();
+        double tb = run[b].time();
+        return ta < tb || (ta == tb && a < b);
+    }
+
+    /* the records of a run, read from the trace a buffer at a time */
+    class Run {
+        private long next;      // first record not read yet
+        private long end;       // record after the run
+        private ByteBuffer buf; // records read, from the next one on
+
+        Run(long start, long end, int records) throws IOException {
+            next = start;
+            this.end = end;
+            buf = ByteBuffer.allocate(records*BinaryTrace.RECORD_SIZE);
+            fill();
+        }
+
+        boolean isEmpty() {
+            return !buf.hasRemaining();
+        }
+
+        // time of the next record
+        double time() {
+            return buf.getDouble(buf.position()+BinaryTrace.R_TIME);
+        }
+
+        // copies the next record to out
+        void take(ByteBuffer out) throws IOException {
+            int limit = buf.limit();
+            buf.limit(buf.position()+BinaryTrace.RECORD_SIZE);
+            out.put(buf);
+            buf.limit(limit);
+            if (!buf.hasRemaining())
+                fill();
+        }
+
+        private void fill() throws IOException {
+            long n = Math.min(end-next,
+                    buf.capacity()/BinaryTrace.RECORD_SIZE);
+            buf.clear();
+            buf.limit((int)n*BinaryTrace.RECORD_SIZE);
+            readFully(buf, BinaryTrace.HEADER_SIZE+
+                    next*BinaryTrace.RECORD_SIZE);
+            next = next+n;
+            buf.flip();
+        }
+    }
+
+    /* writes what is left and the final record count */
+    public void close() throws IOException {
+        try {
+            if (failure == null)
+                flush();
+            if (failure == null && !sorted && known)
+                sortRecords();
+            if (failure == null)
+                writeFully(ch, BinaryTrace.header(count, numChannels,
+                        sorted && known ? BinaryTrace.F_SORTED : 0), 0);
+        } finally {
+            raf.close();
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public long getNumRecords() {
+        return count;
+    }
+
+    public ErrorReport getErrorReport() {
+        return report;
+    }
+}
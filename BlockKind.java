@@ -0,0 +1,204 @@
+/* BlockKind.java
+ *
+ * Created October 17, 2026
+ *
+ * This class is the table of the kinds of blocks a command is
+ * expanded into, such as the bank access of a read or the data
+ * burst of a write.  Everything that only depends on the kind --
+ * the label, the bus (lane) it is drawn on, the command it comes
+ * from and whether it is the command block itself -- is kept once
+ * here, and a BlockStore keeps a one byte kind code per block.
+ * The times of a kind are in the BlockTiming of the store.
+ *
+ * The colors are looked up by command when a block is drawn, so
+ * the blocks do not keep one each.  They and their shades are not
+ * changed once made, so tiles drawn on several threads can share
+ * them.
+ */
+
+// include needed packages
+import java.awt.*;
+
+public class BlockKind {
+
+    // the kind codes, in the order BlockStore.addCommand makes them
+    final static int ROW_ACT = 0;
+    final static int DATA_SENSE = 1;
+    final static int COL_READ = 2;
+    final static int READ_BANK_ACCESS = 3;
+    final static int READ_IO_GATING = 4;
+    final static int READ_DATA_BURST = 5;
+    final static int COL_WRITE = 6;
+    final static int WRITE_DATA_BURST = 7;
+    final static int WRITE_IO_GATING = 8;
+    final static int WRITE_BANK_ACCESS = 9;
+    final static int PRECHARGE = 10;
+    final static int BANK_PRECHARGE = 11;
+    final static int REFRESH = 12;
+    final static int ROW_ACCESS_ALL = 13;
+    final static int PRECHARGE_ALL = 14;
+    final static int BANK_CONFLICT = 15;
+    final static int TFAW_CONFLICT = 16;
+
+    private final static BlockKind[] KINDS = {
+        new BlockKind("row act", VisTool.ROWACT, VisTool.CMD_BUS, true),
+        new BlockKind("data sense", VisTool.ROWACT, VisTool.BANK_UTIL, false),
+        new BlockKind("col read", VisTool.READ, VisTool.CMD_BUS, true),
+        new BlockKind("bank access", VisTool.READ, VisTool.BANK_UTIL, false),
+        new BlockKind("I/O gating", VisTool.READ, VisTool.DEV_UTIL, false),
+        new BlockKind("data burst", VisTool.READ, VisTool.DATA_BUS, false),
+        new BlockKind("col write", VisTool.WRITE, VisTool.CMD_BUS, true),
+        new BlockKind("data burst", VisTool.WRITE, VisTool.DATA_BUS, false),
+        new BlockKind("I/O gating", VisTool.WRITE, VisTool.DEV_UTIL, false),
+        new BlockKind("bank access", VisTool.WRITE, VisTool.BANK_UTIL, false),
+        new BlockKind("precharge", VisTool.PRECHARGE, VisTool.CMD_BUS, true),
+        new BlockKind("bank precharge", VisTool.PRECHARGE,
+                VisTool.BANK_UTIL, false),
+        new BlockKind("refresh", VisTool.REFRESH, VisTool.CMD_BUS, true),
+        new BlockKind("row access (all banks)", VisTool.REFRESH,
+                VisTool.BANK_UTIL, false),
+        new BlockKind("precharge (all banks)", VisTool.REFRESH,
+                VisTool.BANK_UTIL, false),
+        new BlockKind("bank conflict", VisTool.BANKCONFLICT,
+                VisTool.CONFLICT, true),
+        new BlockKind("Tfaw conflict", VisTool.TFAWCONFLICT,
+                VisTool.CONFLICT, true)
+    };
+
+    // the kinds a command is expanded into: they follow each other
+    // in the table, the command block first
+    private final static int[] firstKinds =
+            new int[VisTool.TFAWCONFLICT+1];
+    private final static int[] numKinds = new int[VisTool.TFAWCONFLICT+1];
+    static {
+        for (int k=KINDS.length-1; k >= 0; k--) {
+            firstKinds[KINDS[k].command] = k;
+            numKinds[KINDS[k].command]++;
+        }
+    }
+
+    // shades of a command color the pixel columns of a summed up
+    // lane are drawn in
+    final static int SHADES = 16;
+
+    // color of each command, black for the ones not listed
+    private final static Color[] colors =
+            new Color[VisTool.TFAWCONFLICT+1];
+    static {
+        colors[VisTool.ROWACT] = Color.red;
+        colors[VisTool.READ] = Color.blue;
+        colors[VisTool.WRITE] = Color.green;
+        colors[VisTool.PRECHARGE] = Color.magenta;
+        colors[VisTool.REFRESH] = Color.orange;
+        colors[VisTool.BANKCONFLICT] = Color.cyan;
+        colors[VisTool.TFAWCONFLICT] = Color.pink;
+    }
+
+    // SHADES shades of each color
+    private final static Color[][] shades = makeShades(colors);
+
+    private String label;      // drawn in the block when it fits
+    private int command;       // command the block comes from
+    private int bus;           // lane it is drawn on
+    private int type;          // the command for the command block,
+                               //   NONE for the blocks following it
+    private int labelWidth;    // room the label takes per point of
+                               //   font size
+
+    private BlockKind(String l, int c, int b, boolean isCommand) {
+        label = l;
+        command = c;
+        bus = b;
+        type = isCommand ? c : VisTool.NONE;
+        labelWidth = l.length();
+    }
+
+    /* the kind of a kind code */
+    public static BlockKind get(int kind) {
+        return KINDS[kind];
+    }
+
+    public static int getNumKinds() {
+        return KINDS.length;
+    }
+
+    /* the first of the kinds a command is expanded into, which is
+       its command block */
+    public static int getFirstKind(int command) {
+        return firstKinds[command];
+    }
+
+    /* the number of kinds a command is expanded into, 0 for a
+       command that is not drawn */
+    public static int getNumKinds(int command) {
+        if (command < 0 || command >= numKinds.length)
+            return 0;
+        return numKinds[command];
+    }
+
+    /* the color of a command, black for anything else */
+    public static Color getCommandColor(int command) {
+        if (command < 0 || command >= colors.length ||
+                colors[command] == null)
+            return Color.black;
+        return colors[command];
+    }
+
+    /* the color of a command mixed with white, for a pixel column
+       that is covered the given share of the time, more than 0.
+       From a quarter of the color for the least covered to all of
+       it. */
+    public static Color getCommandShade(int command, double share) {
+        return shades[command][(int)Math.ceil(share*SHADES)-1];
+    }
+
+    // the shades of every color of c
+    private static Color[][] makeShades(Color[] c) {
+        Color[][] s = new Color[c.length][SHADES];
+        for (int k=0; k < c.length; k++) {
+            Color col = (c[k] == null) ? Color.black : c[k];
+            // a column with anything in it stays visible
+            for (int i=0; i < SHADES; i++) {
+                double f = 0.25+0.75*(i+1)/SHADES;
+                s[k][i] = new Color(
+                        255-(int)((255-col.getRed())*f),
+                        255-(int)((255-col.getGreen())*f),
+                        255-(int)((255-col.getBlue())*f));
+            }
+        }
+        return s;
+    }
+
+    /* the width drawTimeBlock allows for the label at a font size.
+       A kind is not changed once made, so tiles painted at the same
+       time can share it. */
+    public int getLabelWidth(int fontSize) {
+        return labelWidth*fontSize;
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getCommand() {
+        return command;
+    }
+
+    public int getBusID() {
+        return bus;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public Color getColor() {
+        return getCommandColor(command);
+    }
+}
@@ -0,0 +1,168 @@
+/* BlockSource.java
+ *
+ * Created October 17, 2026
+ *
+ * This class is what can be read of the blocks of time of the
+ * timing diagram: the columns of a BlockStore, one entry per
+ * block, read through a TimeBlock or the getters here.  A
+ * BlockStore can be added to and changed as well; a source that is
+ * not one, such as a BinaryBlockSource mapped from a binary trace,
+ * can only be read, and the compiler keeps anything from changing
+ * it.  A SegmentedBlockStore adds to the end of sources like that
+ * without changing them (see writable()).
+ *
+ * The blocks are in transaction start order, so the blocks that
+ * can show up in a time window are found with a binary search
+ * (firstAtOrAfter).
+ */
+
+public abstract class BlockSource {
+
+    // only the command blocks are kept
+    protected boolean commandsOnly;
+
+    // the times of the blocks after their transaction start
+    protected BlockTiming timing;
+
+    /* the first block with a transaction start at or after t,
+       size() if there is none.  The store must be in order. */
+    public long firstAtOrAfter(double t) {
+        long lo = 0;
+        long hi = size();
+        while (lo < hi) {
+            long mid = (lo+hi) >>> 1;
+            if (getTransactionStartTime(mid) < t)
+                lo = mid+1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /* are the blocks in transaction start order? */
+    public boolean isSorted() {
+        for (long i=1;i<size();i++) {
+            if (getTransactionStartTime(i) < getTransactionStartTime(i-1))
+                return false;
+        }
+        return true;
+    }
+
+    /* adds the blocks of this store from index first on and the
+       blocks of b, which must both be in order, to s merged in
+       transaction start order.  Ties go to this store. */
+    public void merge(long first, BlockSource b, BlockStore s) {
+        long i = first;
+        long j = 0;
+        while (i < size() || j < b.size()) {
+            if (j == b.size() || (i < size() &&
+                    getTransactionStartTime(i) <= b.getTransactionStartTime(j)))
+                s.add(this, i++);
+            else
+                s.add(b, j++);
+        }
+    }
+
+    /* creates an empty store kept the same way as this one */
+    public abstract BlockStore newStore(long capacity);
+
+    /* a store that holds these blocks and can be added to: this
+       one if it is a BlockStore, otherwise one that adds after
+       the blocks and leaves them as they are */
+    public BlockStore writable() {
+        return new SegmentedBlockStore(this);
+    }
+
+    /* frees what the store holds outside of the heap, the
+       store can not be used afterwards */
+    public void close() {
+    }
+
+    public abstract long size();
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // are only the command blocks kept?
+    public boolean isCommandsOnly() {
+        return commandsOnly;
+    }
+
+    /* are only the command blocks kept whatever the diagram
+       keeps?  A binary trace holds nothing else. */
+    public boolean isCommandsOnlyAlways() {
+        return false;
+    }
+
+    /* moves the blocks to another timing, which is kept by
+       reference and must not change afterwards */
+    public void setTiming(BlockTiming t) {
+        timing = t;
+    }
+
+    public BlockTiming getTiming() {
+        return timing;
+    }
+
+    // are the blocks kept outside of the Java heap?
+    public boolean isOffHeap() {
+        return false;
+    }
+
+    /* the file the indexes of the store keep their columns in,
+       null if they are kept on the heap like the blocks */
+    public PageFile getPageFile() {
+        return null;
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public abstract int getID(long i);
+
+    // the BlockKind code
+    public abstract int getKind(long i);
+
+    public int getBusID(long i) {
+        return BlockKind.get(getKind(i)).getBusID();
+    }
+
+    // the command the block came from
+    public int getCommand(long i) {
+        return BlockKind.get(getKind(i)).getCommand();
+    }
+
+    public double getStartTime(long i) {
+        return getTransactionStartTime(i)+timing.getStart(getKind(i));
+    }
+
+    public double getEndTime(long i) {
+        return getTransactionStartTime(i)+timing.getEnd(getKind(i));
+    }
+
+    public abstract double getTransactionStartTime(long i);
+
+    public double getTransactionEndTime(long i) {
+        return getTransactionStartTime(i)+
+                timing.getTransactionEnd(getKind(i));
+    }
+
+    // the command for the command block itself, NONE for the others
+    public int getType(long i) {
+        return BlockKind.get(getKind(i)).getType();
+    }
+
+    public abstract int getRank(long i);
+
+    public abstract int getBank(long i);
+
+    public abstract int getRow(long i);
+
+    public abstract int getCol(long i);
+
+    public abstract int getChannel(long i);
+}
@@ -0,0 +1,167 @@
+/* BlockStore.java
+ *
+ * Created October 17, 2026
+ *
+ * This class holds the blocks of time of the timing diagram in
+ * columns, one entry per block, instead of one TimeBlock object
+ * per block, and is where blocks are added and changed; what can
+ * only be read of them is a BlockSource.  The painting, stats and hit-test code read the
+ * blocks through a TimeBlock, which is a cursor that can be moved
+ * along the store.
+ *
+ * HeapBlockStore keeps the columns in arrays on the Java heap.
+ * MappedBlockStore keeps them in a memory-mapped temporary file,
+ * so traces with more blocks than fit in the heap can still be
+ * loaded; isOffHeap() tells which one a number of blocks needs.
+ * The blocks are numbered by a long, since a store off the heap
+ * can hold more of them than an int counts.
+ *
+ * A store can also keep only the block of each command itself,
+ * and leave the blocks that follow from it to be derived again
+ * from the DRAM timing when they are needed.  That takes a third
+ * of the room or less.
+ *
+ * The diagram keeps its blocks in transaction start order, so
+ * the blocks that can show up in a time window are found with a
+ * binary search (firstAtOrAfter).  sorted() and merge() put
+ * blocks into that order.
+ *
+ * Rank and bank are kept as shorts and the channel as a byte,
+ * which covers every DRAM the tool knows about.  The label, bus,
+ * command and command type follow from the kind of the block
+ * (BlockKind), which is kept as a byte as well.  Of the times only
+ * the transaction start is kept: the start and end of a block and
+ * the end of its transaction are the same distance from it for
+ * every block of a kind, and are worked out from the BlockTiming
+ * of the store when they are read.
+ */
+
+// include needed packages
+import java.util.*;
+
+public abstract class BlockStore extends BlockSource {
+
+    // bytes one block takes in the columns
+    final static int BLOCK_BYTES = 8+3*4+2*2+2;
+
+    // share of the heap the blocks may take before they go off heap
+    final static int HEAP_SHARE = 4;
+
+    // keep the blocks off the heap whatever their number
+    private static boolean alwaysOffHeap;
+
+    /* should n blocks be kept off the heap?  They are when they
+       would take more than a HEAP_SHARE of the heap */
+    public static boolean isOffHeap(long n) {
+        long heap = Runtime.getRuntime().maxMemory();
+        return alwaysOffHeap || n*BLOCK_BYTES > heap/HEAP_SHARE;
+    }
+
+    public static void setAlwaysOffHeap(boolean b) {
+        alwaysOffHeap = b;
+    }
+
+    public static boolean isAlwaysOffHeap() {
+        return alwaysOffHeap;
+    }
+
+    /* adds a block of one of the BlockKind kinds */
+    public abstract void add(int id, int kind,
+            int rank, int bank, int row, int col, double transStart);
+
+    /* adds the blocks of a command, only its command block if
+       only the commands are kept */
+    public void addCommand(double time, int type, int transID,
+            int rank, int bank, int row, int col) {
+        int n = BlockKind.getNumKinds(type);
+        if (commandsOnly)
+            n = Math.min(n, 1);
+        int k = BlockKind.getFirstKind(type);
+        for (int i=0;i<n;i++)
+            add(transID, k+i, rank, bank, row, col, time);
+    }
+
+    /* adds block i of another store */
+    public void add(BlockSource s, long i) {
+        add(s.getID(i), s.getKind(i),
+                s.getRank(i), s.getBank(i), s.getRow(i), s.getCol(i),
+                s.getTransactionStartTime(i));
+        int c = s.getChannel(i);
+        if (c != 0)
+            setChannel(size()-1, c);
+    }
+
+    /* adds all blocks of another store */
+    public void addAll(BlockSource s) {
+        long n = s.size();
+        for (long i=0;i<n;i++)
+            add(s, i);
+    }
+
+    /* returns the blocks in transaction start order, this store
+       if they already are and a new one otherwise.  The sort is
+       stable, so the blocks of a command stay together and in
+       the order they were made.  The order is worked out on the
+       heap, which is fine for the chunk of a load or a step of the
+       follower this is used for, but not for more than an int of
+       blocks. */
+    public BlockStore sorted() {
+        if (isSorted())
+            return this;
+
+        int n = Math.toIntExact(size());
+        double[] keys = new double[n];
+        int[] order = new int[n];
+        for (int i=0;i<n;i++) {
+            keys[i] = getTransactionStartTime(i);
+            order[i] = i;
+        }
+        mergeSort(order, new int[n], 0, n, keys);
+
+        BlockStore s = newStore(n);
+        for (int i=0;i<n;i++)
+            s.add(this, order[i]);
+        return s;
+    }
+
+    /* sorts order[from..to) by keys, keeping equal keys in order */
+    static void mergeSort(int[] order, int[] tmp, int from, int to,
+            double[] keys) {
+        if (to-from < 2)
+            return;
+        int mid = (from+to) >>> 1;
+        mergeSort(order, tmp, from, mid, keys);
+        mergeSort(order, tmp, mid, to, keys);
+        if (keys[order[mid-1]] <= keys[order[mid]])
+            return;
+
+        System.arraycopy(order, from, tmp, from, to-from);
+        int i = from;
+        int j = mid;
+        for (int k=from;k<to;k++) {
+            if (j == to || (i < mid && keys[tmp[i]] <= keys[tmp[j]]))
+                order[k] = tmp[i++];
+            else
+                order[k] = tmp[j++];
+        }
+    }
+
+    /* drops the blocks from index n on */
+    public abstract void truncate(long n);
+
+    /* puts the blocks from index first on into channel c */
+    public abstract void setChannel(long first, int c);
+
+    /* removes every block, keeping the space they took */
+    public abstract void clear();
+
+    /* keeps only the command blocks from now on */
+    public void setCommandsOnly(boolean b) {
+        commandsOnly = b;
+    }
+
+    /* this store, it can be added to already */
+    public BlockStore writable() {
+        return this;
+    }
+}
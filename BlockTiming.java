@@ -0,0 +1,55 @@
+/* BlockTiming.java
+ *
+ * Created October 17, 2026
+ *
+ * This class holds when the blocks of each kind start and end,
+ * and when their transaction ends, as times after the start of
+ * their transaction.  Every block of a kind is as long and as far
+ * from its command as any other under the same DRAM timing, so a
+ * BlockStore only keeps the transaction start and the kind of a
+ * block and works its times out from the table.
+ *
+ * VisTool makes a new table whenever the timing changes.  A table
+ * is not changed once it is handed out, so stores read on several
+ * threads can share it, and moving the blocks to a new timing is
+ * only a matter of giving their store the new table.
+ */
+
+public class BlockTiming {
+
+    private double[] starts;     // by kind, after the transaction start
+    private double[] ends;
+    private double[] transEnds;
+
+    public BlockTiming() {
+        int n = BlockKind.getNumKinds();
+        starts = new double[n];
+        ends = new double[n];
+        transEnds = new double[n];
+    }
+
+    /* sets the times of a kind, while the table is being made */
+    void set(int kind, double start, double end, double transEnd) {
+        starts[kind] = start;
+        ends[kind] = end;
+        transEnds[kind] = transEnd;
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public double getStart(int kind) {
+        return starts[kind];
+    }
+
+    public double getEnd(int kind) {
+        return ends[kind];
+    }
+
+    public double getTransactionEnd(int kind) {
+        return transEnds[kind];
+    }
+}
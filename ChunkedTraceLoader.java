@@ -0,0 +1,765 @@
+/* ChunkedTraceLoader.java
+ *
+ * Created October 17, 2026
+ *
+ * This class loads a trace file using every core.  The file
+ * is split into chunks at line boundaries (or record boundaries
+ * for a binary trace), each chunk is decoded by its own
+ * TraceDecoder and expanded into TimeBlocks on a ForkJoinPool,
+ * and the chunks are then merged in time order.  When only a
+ * time window of a large trace is wanted, a TraceIndex narrows
+ * the load to the bytes that can hold commands in the window.
+ * Each chunk is sorted on its own, so the merged blocks are in
+ * transaction start order even if the trace is not.
+ *
+ * Several traces, one per memory channel, can be loaded at once.
+ * The chunks of all of them run side by side, their TimeBlocks
+ * are tagged with the channel (the position of the file) and
+ * the same k-way merge interleaves them by time.
+ *
+ * While the chunks are joined, the blocks that no chunk still to
+ * come can go before are merged and handed over early
+ * (takePublishable), so the start of the trace can be shown while
+ * the rest is loading.  A trace is rarely in strict time order, so
+ * this does not wait for chunks that do not overlap.  It only
+ * assumes that a chunk of a file starts no earlier than the chunk
+ * before it.  A chunk that breaks this is found when it is joined;
+ * nothing more is handed over then, and the blocks are merged
+ * again at the end.
+ *
+ * When the blocks expected from the bytes to load would not fit
+ * in the heap, every chunk and the merged result are kept in a
+ * MappedBlockStore instead.
+ *
+ * A binary trace may hold several channels itself, so the channel
+ * of a block is the first channel of its file plus the channel of
+ * its record.  A single binary trace whose writer flagged it sorted
+ * is not decoded at all when the whole of it is loaded: its records
+ * are mapped as a BinaryBlockSource, which is handed over as it is
+ * and indexed after it is shown (see isMapped()).
+ */
+
+// include needed packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ChunkedTraceLoader {
+
+    // smallest chunk that is worth its own task
+    final static long MIN_CHUNK_SIZE = 1L<<20;
+    // chunks per core, so that uneven chunks still balance out
+    final static int CHUNKS_PER_CORE = 4;
+
+    // rough size of a command in a text trace and the blocks one
+    // command expands into, to guess how much room a load needs
+    final static int TEXT_COMMAND_BYTES = 32;
+    final static int BLOCKS_PER_COMMAND = 3;
+
+    // pool shared by every load
+    final static ForkJoinPool pool =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private File[] files;       // traces being loaded, one per channel
+    private double startTime;   // time window passed to the decoders
+    private double endTime;
+    private int maxErrors;      // give up after this many errors
+
+    private RandomAccessFile[] rafs; // open while the chunks run
+    private long fileSize;      // of all files together
+    private long[] loadStarts;  // bytes of each file handed to the
+    private long[] loadEnds;    //   chunks start and end here
+    private long[] firstLines;  // lines of each file before loadStart
+    private boolean completeLinesOnly; // leave a partial last line
+    private boolean[] binaries; // which files are binary traces
+    private int[] channelBases; // first channel of each file
+    private int numChannels;    // of all files together
+    private boolean mapped;     // the records are the blocks
+    private ChunkTask[] chunks; // one task per chunk of the file
+    private BlockSource blocks; // the merged TimeBlocks
+    private boolean offHeap;    // keep the blocks off the heap
+    private boolean commandsOnly; // keep only the command blocks
+    private BlockTiming timing; // DRAM timing when the load was made
+    private long numCommands;   // commands decoded in all chunks
+    private long numLines;      // lines of the (first) file up to loadEnd
+    private ErrorReport report; // lines that could not be decoded
+    private boolean aborted;    // too many errors were found
+    private volatile boolean cancelled; // the user stopped the load
+    private volatile TraceIndex indexBuild; // index being built, if any
+
+    // are the chunks joined so far in time order?
+    private boolean inOrder = true;
+    private double lastTime = Double.NEGATIVE_INFINITY;
+
+    // the blocks handed over while loading, all of those before
+    // publishedTime in the chunks joined so far
+    private int numJoined;      // chunks joined so far
+    private long[] published;   // blocks of each chunk handed over
+    private double publishedTime = Double.NEGATIVE_INFINITY;
+    private long publishedCommands; // commands in those blocks
+    private boolean publishable = true; // no chunk went before them
+
+    public ChunkedTraceLoader(VisTool p, File f,
+            double start, double end, int maxErr) {
+        this(p, new File[] {f}, start, end, maxErr);
+    }
+
+    public ChunkedTraceLoader(VisTool p, File[] f,
+            double start, double end, int maxErr) {
+        files = f;
+        startTime = start;
+        endTime = end;
+        maxErrors = maxErr;
+        // taken now, the chunks do not read the VisTool
+        commandsOnly = p.isDeriveBlocks();
+        timing = p.getBlockTiming();
+    }
+
+    /* decodes every chunk of the file in parallel and merges them */
+    public void load() throws IOException {
+        try {
+            start();
+            for (int i=0;i<getNumChunks();i++)
+                joinChunk(i);
+        } finally {
+            finish();
+        }
+        getBlocks();
+    }
+
+    /* splits the files and starts decoding all of their chunks */
+    public void start() throws IOException {
+        int n = files.length;
+        rafs = new RandomAccessFile[n];
+        loadStarts = new long[n];
+        loadEnds = new long[n];
+        firstLines = new long[n];
+        binaries = new boolean[n];
+        channelBases = new int[n];
+
+        Vector<ChunkTask> tasks = new Vector<ChunkTask>();
+        for (int c=0;c<n;c++) {
+            rafs[c] = new RandomAccessFile(files[c], "r");
+            FileChannel ch = rafs[c].getChannel();
+            long[] bounds = split(c, ch);
+            channelBases[c] = numChannels;
+            numChannels = numChannels+
+                    (binaries[c] ? BinaryTrace.numChannels(ch) : 1);
+            for (int i=0;i+1<bounds.length;i++) {
+                tasks.addElement(new ChunkTask(ch,
+                        bounds[i], bounds[i+1], c, binaries[c]));
+            }
+        }
+        offHeap = BlockStore.isOffHeap(expectedBlocks());
+
+        // a sorted binary trace is its own store
+        if (n == 1 && binaries[0] && startTime == Double.NEGATIVE_INFINITY &&
+                endTime == Double.POSITIVE_INFINITY &&
+                BinaryTrace.isSorted(rafs[0].getChannel())) {
+            blocks = new BinaryBlockSource(files[0]);
+            blocks.setTiming(timing);
+            numCommands = blocks.size();
+            offHeap = true;
+            mapped = true;
+            chunks = new ChunkTask[0];
+            published = new long[0];
+            return;
+        }
+
+        ChunkTask[] t = new ChunkTask[tasks.size()];
+        tasks.copyInto(t);
+        chunks = t;
+        published = new long[t.length];
+        for (int i=0;i<t.length;i++) {
+            t[i].blocks = newStore();
+            pool.execute(t[i]);
+        }
+    }
+
+    /* a guess at the number of blocks the load will make */
+    private long expectedBlocks() {
+        long n = 0;
+        for (int c=0;c<files.length;c++) {
+            long bytes = loadEnds[c]-loadStarts[c];
+            if (binaries[c])
+                n = n+bytes/BinaryTrace.RECORD_SIZE;
+            else
+                n = n+bytes/TEXT_COMMAND_BYTES;
+        }
+        return n*BLOCKS_PER_COMMAND;
+    }
+
+    private BlockStore newStore() {
+        BlockStore s = offHeap ? new MappedBlockStore() :
+                new HeapBlockStore();
+        s.setCommandsOnly(commandsOnly);
+        s.setTiming(timing);
+        return s;
+    }
+
+    /* works out which bytes of file c to load and splits them
+       into chunks */
+    private long[] split(int c, FileChannel ch) throws IOException {
+        long size = ch.size();
+        fileSize = fileSize+size;
+        binaries[c] = BinaryTrace.isBinary(ch);
+
+        if (binaries[c]) {
+            loadStarts[c] = BinaryTrace.HEADER_SIZE;
+            loadEnds[c] = BinaryTrace.recordsEnd(ch);
+        } else {
+            loadStarts[c] = 0;
+            loadEnds[c] = size;
+            if (completeLinesOnly)
+                loadEnds[c] = lastLineEnd(ch, 0, size);
+        }
+
+        // only read the part of a large trace that can hold the window
+        if (!completeLinesOnly && size >= TraceIndex.MIN_TRACE_SIZE &&
+                (startTime > Double.NEGATIVE_INFINITY ||
+                endTime < Double.POSITIVE_INFINITY)) {
+            TraceIndex index = TraceIndex.forFile(files[c], ch,
+                    loadStarts[c], loadEnds[c], binaries[c], this);
+            if (index != null) {
+                int first = index.firstBlock(startTime);
+                int last = Math.max(first, index.lastBlock(endTime));
+                loadStarts[c] = index.getOffset(first);
+                loadEnds[c] = index.getOffset(last);
+                firstLines[c] = index.getLine(first);
+            }
+        }
+
+        long start = loadStarts[c];
+        long end = loadEnds[c];
+        if (binaries[c]) {
+            // records have a fixed size, so no searching is needed
+            return BinaryTrace.splitRecords(start, end,
+                    numChunks(end-start));
+        }
+        return splitAtNewlines(ch, start, end, numChunks(end-start));
+    }
+
+    /* waits for chunk i and returns its TimeBlocks.  Chunks must
+       be joined in order. */
+    public BlockStore joinChunk(int i) throws IOException {
+        ChunkTask c = chunks[i];
+        c.join();
+        if (c.failure != null || c.error != null) {
+            // the other chunks still use the files and their stores
+            stopChunks();
+            if (c.failure != null)
+                throw c.failure;
+            throw c.error;
+        }
+
+        // does this chunk follow the ones before it in time?
+        if (!c.blocks.isEmpty()) {
+            if (c.minTime < lastTime)
+                inOrder = false;
+            lastTime = Math.max(lastTime, c.maxTime);
+            // it goes before blocks already handed over
+            if (c.minTime < publishedTime)
+                publishable = false;
+        }
+        numJoined = i+1;
+        return c.blocks;
+    }
+
+    /* merges the blocks of the chunks joined so far that go before
+       every block of the chunks still to come, and that were not
+       handed over yet.  Once all chunks are joined that is all
+       that is left.  Returns null if nothing can be handed over. */
+    public BlockStore takePublishable() {
+        double t = publishableTime();
+        if (!publishable || t <= publishedTime)
+            return null;
+
+        // k-way merge up to t, the same order mergeChunks makes
+        BlockStore s = newStore();
+        int[] heap = new int[numJoined];
+        int n = 0;
+        for (int i=0;i<numJoined;i++) {
+            if (published[i] < chunks[i].blocks.size())
+                heap[n++] = i;
+        }
+        for (int i=n/2-1;i>=0;i--)
+            siftDown(heap, n, i, published);
+
+        while (n > 0) {
+            int c = heap[0];
+            BlockStore b = chunks[c].blocks;
+            if (b.getTransactionStartTime(published[c]) >= t)
+                break;
+            s.add(b, published[c]);
+            if (b.getType(published[c]) != VisTool.NONE)
+                publishedCommands++;
+            published[c]++;
+            if (published[c] == b.size())
+                heap[0] = heap[--n];
+            siftDown(heap, n, 0, published);
+        }
+        publishedTime = t;
+        return s;
+    }
+
+    /* the time no chunk still to come has a block before: for each
+       file, the start of the last of its chunks joined so far */
+    private double publishableTime() {
+        double t = Double.POSITIVE_INFINITY;
+        for (int c=0;c<files.length;c++) {
+            double start = Double.NEGATIVE_INFINITY;
+            boolean joined = true;
+            for (int i=0;i<chunks.length;i++) {
+                if (chunks[i].channel != c)
+                    continue;
+                if (i >= numJoined) {
+                    joined = false;
+                    break;
+                }
+                if (!chunks[i].blocks.isEmpty())
+                    start = chunks[i].minTime;
+            }
+            if (!joined)
+                t = Math.min(t, start);
+        }
+        return t;
+    }
+
+    /* closes the file and gathers the errors once all chunks
+       have been joined */
+    public void finish() throws IOException {
+        if (rafs == null)
+            return;
+        // a load that failed part way must not close the files
+        // under chunks that are still decoding
+        if (chunks != null && numJoined < chunks.length)
+            stopChunks();
+        for (int c=0;c<rafs.length;c++) {
+            if (rafs[c] != null)
+                rafs[c].close();
+        }
+        rafs = null;
+        if (chunks == null)
+            return;
+
+        collectErrors();
+        for (int i=0;i<chunks.length;i++)
+            numCommands = numCommands+chunks[i].decoder.getNumCommands();
+    }
+
+    /* stops every chunk at its next progress update */
+    public void cancel() {
+        cancelled = true;
+        TraceIndex index = indexBuild;
+        if (index != null)
+            index.cancel();
+        if (chunks == null)
+            return;
+        for (int i=0;i<chunks.length;i++)
+            chunks[i].decoder.cancel();
+    }
+
+    /* cancels every chunk and waits until none of them runs */
+    private void stopChunks() {
+        cancel();
+        for (int i=0;i<chunks.length;i++)
+            chunks[i].quietlyJoin();
+    }
+
+    /* how many chunks a file of the given size is split into */
+    static int numChunks(long size) {
+        long n = Math.min(
+                (long)pool.getParallelism()*CHUNKS_PER_CORE,
+                size/MIN_CHUNK_SIZE);
+        return (int)Math.max(1, n);
+    }
+
+    /* splits the bytes between start and end into n pieces which
+       all begin on the first byte of a line.  Some pieces may be
+       empty if the lines are very long. */
+    static long[] splitAtNewlines(FileChannel ch, long start, long end, int n)
+            throws IOException {
+        long[] bounds = new long[n+1];
+        bounds[0] = start;
+        bounds[n] = end;
+
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        for (int i=1;i<n;i++) {
+            long p = start+(end-start)*i/n;
+            bounds[i] = Math.max(bounds[i-1], lineStartAtOrAfter(ch, p, end, buf));
+        }
+        return bounds;
+    }
+
+    /* finds the first line that begins at or after p */
+    static long lineStartAtOrAfter(FileChannel ch, long p, long end,
+            ByteBuffer buf) throws IOException {
+        if (p <= 0)
+            return 0;
+
+        // a line begins at p if the byte before it ends a line
+        p = p-1;
+        while (p < end) {
+            buf.clear();
+            int n = ch.read(buf, p);
+            if (n <= 0)
+                break;
+            for (int i=0;i<n;i++) {
+                if (buf.get(i) == '\n')
+                    return Math.min(end, p+i+1);
+            }
+            p = p+n;
+        }
+        return end;
+    }
+
+    /* finds the end of the last complete line between from and to,
+       or from if there is none */
+    static long lastLineEnd(FileChannel ch, long from, long to)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long p = to;
+        while (p > from) {
+            int n = (int)Math.min(buf.capacity(), p-from);
+            buf.clear();
+            buf.limit(n);
+            int r = 0;
+            while (r < n) {
+                int k = ch.read(buf, p-n+r);
+                if (k <= 0)
+                    return from;
+                r = r+k;
+            }
+            for (int i=n-1;i>=0;i--) {
+                if (buf.get(i) == '\n')
+                    return p-n+i+1;
+            }
+            p = p-n;
+        }
+        return from;
+    }
+
+    /* gathers the errors of all chunks, numbering the lines from
+       the start of the file instead of the start of the chunk */
+    private void collectErrors() {
+        report = new ErrorReport();
+        long firstLine = 0;
+        for (int i=0;i<chunks.length;i++) {
+            int c = chunks[i].channel;
+            if (i == 0 || c != chunks[i-1].channel)
+                firstLine = firstLines[c];
+            report.addAll(chunks[i].report, firstLine,
+                    files.length > 1 ? files[c].getName() : null);
+            firstLine = firstLine+chunks[i].decoder.getNumLines();
+            if (c == 0)
+                numLines = firstLine;
+        }
+
+        // each chunk stops at the limit on its own, so the
+        // limit applies to the whole file here
+        aborted = (maxErrors >= 0 && report.getErrors() > maxErrors);
+        report.setAborted(aborted, maxErrors);
+    }
+
+    /* merges the chunks by transaction start time.  When the chunks
+       follow each other in time, which is the case for a sorted
+       trace, they are simply appended. */
+    private BlockStore mergeChunks() {
+        long total = 0;
+        for (int i=0;i<chunks.length;i++)
+            total = total+chunks[i].blocks.size();
+
+        BlockStore merged = offHeap ? new MappedBlockStore() :
+                new HeapBlockStore((int)Math.min(total,
+                        HeapBlockStore.MAX_CAPACITY));
+        merged.setCommandsOnly(commandsOnly);
+        merged.setTiming(timing);
+        if (inOrder) {
+            for (int i=0;i<chunks.length;i++) {
+                merged.addAll(chunks[i].blocks);
+                chunks[i].blocks.close();
+                chunks[i].blocks = null;
+            }
+            return merged;
+        }
+
+        // k-way merge using a heap of chunk numbers
+        int[] heap = new int[chunks.length];
+        long[] next = new long[chunks.length];
+        int n = 0;
+        for (int i=0;i<chunks.length;i++) {
+            if (!chunks[i].blocks.isEmpty())
+                heap[n++] = i;
+        }
+        for (int i=n/2-1;i>=0;i--)
+            siftDown(heap, n, i, next);
+
+        while (n > 0) {
+            int c = heap[0];
+            merged.add(chunks[c].blocks, next[c]);
+            next[c]++;
+            if (next[c] == chunks[c].blocks.size())
+                heap[0] = heap[--n];
+            siftDown(heap, n, 0, next);
+        }
+        close();
+        return merged;
+    }
+
+    /* frees the blocks of the chunks.  The merged blocks belong
+       to whoever called getBlocks(). */
+    public void close() {
+        ChunkTask[] c = chunks;
+        for (int i=0;c!=null && i<c.length;i++) {
+            if (c[i].blocks != null) {
+                c[i].blocks.close();
+                c[i].blocks = null;
+            }
+        }
+    }
+
+    private void siftDown(int[] heap, int n, int i, long[] next) {
+        while (true) {
+            int l = 2*i+1;
+            if (l >= n)
+                return;
+            int m = l;
+            if (l+1 < n && before(heap[l+1], heap[l], next))
+                m = l+1;
+            if (!before(heap[m], heap[i], next))
+                return;
+            int t = heap[i];
+            heap[i] = heap[m];
+            heap[m] = t;
+            i = m;
+        }
+    }
+
+    /* is the next block of chunk a earlier than that of chunk b?
+       Ties go to the earlier chunk to keep file order. */
+    private boolean before(int a, int b, long[] next) {
+        double ta = chunks[a].blocks.getTransactionStartTime(next[a]);
+        double tb = chunks[b].blocks.getTransactionStartTime(next[b]);
+        return ta < tb || (ta == tb && a < b);
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    /* the blocks of all chunks in time order, merged on first use */
+    public BlockSource getBlocks() {
+        if (blocks == null && !aborted && chunks != null) {
+            blocks = mergeChunks();
+            chunks = null;
+        }
+        return blocks;
+    }
+
+    public int getNumChunks() {
+        return chunks.length;
+    }
+
+    // were all blocks handed over by takePublishable()?
+    public boolean isAllPublished() {
+        if (mapped || !publishable || numJoined < chunks.length)
+            return false;
+        for (int i=0;i<chunks.length;i++) {
+            if (published[i] < chunks[i].blocks.size())
+                return false;
+        }
+        return true;
+    }
+
+    // were the blocks mapped from a binary trace as they are?
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    // commands in the blocks handed over by takePublishable()
+    public long getPublishedCommands() {
+        return publishedCommands;
+    }
+
+    // are the blocks kept off the heap?
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // is the (first) file a binary trace?
+    public boolean isBinary() {
+        return binaries[0];
+    }
+
+    public int getNumFiles() {
+        return files.length;
+    }
+
+    // channels of all files together, once the load has started
+    public int getNumChannels() {
+        return numChannels;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    // bytes the progress is measured against
+    public long getProgressSize() {
+        if (indexBuild != null || chunks == null)
+            return fileSize;
+        long n = 0;
+        for (int c=0;c<files.length;c++)
+            n = n+loadEnds[c]-loadStarts[c];
+        return n;
+    }
+
+    // start of the bytes of the (first) file that were loaded
+    public long getLoadStart() {
+        return loadStarts[0];
+    }
+
+    // end of the bytes of the (first) file that were loaded
+    public long getLoadedSize() {
+        return loadEnds[0];
+    }
+
+    /* set by TraceIndex while it reads the whole file, so that
+       the build shows up as progress and can be cancelled */
+    void setIndexBuild(TraceIndex index) {
+        indexBuild = index;
+        if (index != null && cancelled)
+            index.cancel();
+    }
+
+    // true while the trace is being indexed
+    public boolean isIndexing() {
+        return indexBuild != null;
+    }
+
+    /* stops the load at the end of the last complete line, for
+       files that are still being written */
+    public void setCompleteLinesOnly(boolean b) {
+        completeLinesOnly = b;
+    }
+
+    // bytes decoded so far by all chunks
+    public long getBytesDone() {
+        TraceIndex index = indexBuild;
+        if (index != null)
+            return index.getBytesDone();
+
+        long n = 0;
+        ChunkTask[] c = chunks;
+        for (int i=0;c!=null && i<c.length;i++)
+            n = n+c[i].decoder.getBytesDone();
+        return n;
+    }
+
+    // commands decoded so far by all chunks
+    public long getCommandsDone() {
+        long n = 0;
+        ChunkTask[] c = chunks;
+        for (int i=0;c!=null && i<c.length;i++)
+            n = n+c[i].decoder.getCommandsDone();
+        return n;
+    }
+
+    public long getNumCommands() {
+        return numCommands;
+    }
+
+    // lines of the (first) file up to the end of the bytes loaded
+    public long getNumLines() {
+        return numLines;
+    }
+
+    public long getErrors() {
+        return report.getErrors();
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    // the errors of all chunks, once they have been joined
+    public ErrorReport getErrorReport() {
+        return report;
+    }
+
+    // Decodes and expands one chunk of a file
+    class ChunkTask extends RecursiveAction implements CommandSink {
+        private static final long serialVersionUID = 1L;
+
+        FileChannel ch;       // file shared by all its chunks
+        long from;            // bytes of the file in this chunk
+        long to;
+        int channel;          // which of the files it is
+        TraceDecoder decoder; // decoder for this chunk
+        BlockStore blocks;    // set before the task runs
+        double minTime = Double.POSITIVE_INFINITY;
+        double maxTime = Double.NEGATIVE_INFINITY;
+        boolean sorted = true; // the commands came in time order
+        ErrorReport report = new ErrorReport(); // lines in this chunk
+        IOException failure;  // reported to load() after the join
+        RuntimeException error; // any other failure, reported alike
+
+        ChunkTask(FileChannel c, long f, long t, int chan, boolean binary) {
+            ch = c;
+            from = f;
+            to = t;
+            channel = chan;
+            decoder = binary ?
+                    new BinaryTraceReader(this, startTime, endTime, maxErrors) :
+                    new TraceParser(this, startTime, endTime, maxErrors);
+            if (cancelled)
+                decoder.cancel();
+        }
+
+        protected void compute() {
+            try {
+                decoder.parseRange(ch, from, to);
+                BlockStore s = sorted ? blocks : blocks.sorted();
+                if (s != blocks) {
+                    blocks.close();
+                    blocks = s;
+                }
+            } catch (IOException ioe) {
+                failure = ioe;
+            } catch (UncheckedIOException uioe) {
+                // the temporary file of the blocks could not grow
+                failure = uioe.getCause();
+            } catch (RuntimeException re) {
+                error = re;
+            }
+        }
+
+        public void addCommand(double time, int type, int transID,
+                int rank, int bank, int row, int col, int chan) {
+            if (time < maxTime)
+                sorted = false;
+            if (time < minTime)
+                minTime = time;
+            if (time > maxTime)
+                maxTime = time;
+            long first = blocks.size();
+            blocks.addCommand(time,type,transID,rank,bank,row,col);
+            int c = channelBases[channel]+chan;
+            if (c != 0)
+                blocks.setChannel(first, c);
+        }
+
+        public void parseError(long lineNum, int kind, String message,
+                String text) {
+            report.add(lineNum, kind, message, text);
+        }
+    }
+}
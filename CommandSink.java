@@ -0,0 +1,25 @@
+/* CommandSink.java
+ *
+ * Created October 17, 2026
+ *
+ * This interface receives the DRAM commands decoded
+ * by a TraceParser.  The chunks of a ChunkedTraceLoader and the
+ * TraceFollower implement it to turn each command into blocks as
+ * the trace is read.
+ */
+
+public interface CommandSink {
+
+    /* called once for every command decoded from the trace.  The
+       channel is the one the command is on within the trace, 0 for
+       a text trace, which holds a single channel. */
+    public void addCommand(double time, int type, int transID,
+            int rank, int bank, int row, int col, int channel);
+
+    /* called for every line of the trace that could not be decoded.
+       kind is one of the ErrorReport kinds.  Only the first errors
+       of a decoder come with a message and the text of the line,
+       after that both are null so bad lines stay cheap. */
+    public void parseError(long lineNum, int kind, String message,
+            String text);
+}
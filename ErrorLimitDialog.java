@@ -0,0 +1,87 @@
+/* ErrorLimitDialog.java
+ *
+ * Created October 17, 2026
+ *
+ * This class creates a dialog that allows the user to
+ * set how many bad lines a trace may have before loading
+ * it is given up, or to never give up.
+ */
+
+// include needed packages
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+public class ErrorLimitDialog extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    JFrame frame;     // frame that holds the dialog
+
+    public ErrorLimitDialog(JFrame f, final VisTool parent) {
+        this.frame = f;
+
+        // create the panel that holds the inputs and buttons
+        JPanel limitPanel = new JPanel();
+        limitPanel.setPreferredSize(new Dimension(300,150));
+
+        // set the default values as the current ones
+        int limit = parent.getMaxInputErrors();
+        final IntInput limitInput = new IntInput("Give up after",
+                limit < 0 ? 5 : limit, "errors");
+        final JCheckBox neverBox = new JCheckBox("Never give up", limit < 0);
+
+        // OK button
+        JButton okButton = new JButton("Ok");
+        okButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                if (neverBox.isSelected()) {
+                    parent.setMaxInputErrors(-1);
+                } else {
+                    int n;
+                    try {
+                        n = limitInput.getValue();
+                    } catch (NumberFormatException nfe) {
+                        n = -1;
+                    }
+                    if (n < 0) {
+                        parent.displayErrorMessage("Input Error",
+                                "The error limit must be a number >= 0.");
+                        return;
+                    }
+                    parent.setMaxInputErrors(n);
+                }
+                frame.dispose();
+            }
+        });
+
+        // Cancel button
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                // do nothing and close the frame
+                frame.dispose();
+            }
+        });
+
+        // Create panel for the inputs
+        JPanel box = new JPanel();
+        box.setLayout(new BoxLayout(box, BoxLayout.Y_AXIS));
+        box.add(new JLabel("Bad lines allowed when loading data."));
+        box.add(limitInput);
+        box.add(neverBox);
+
+        limitPanel.setLayout(new BorderLayout());
+        limitPanel.add(box, BorderLayout.NORTH);
+
+        // create a 1x2 grid for the buttons
+        JPanel buttonPanel = new JPanel(new GridLayout(1,2));
+        buttonPanel.add(okButton);
+        buttonPanel.add(cancelButton);
+        limitPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        // add the panel into the dialog's main panel
+        setLayout(new BorderLayout());
+        add(limitPanel, BorderLayout.CENTER);
+    }
+}
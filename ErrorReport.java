@@ -0,0 +1,155 @@
+/* ErrorReport.java
+ *
+ * Created October 17, 2026
+ *
+ * This class collects the errors found while decoding a
+ * trace.  It counts every error by kind but keeps the line
+ * number, message and text of only the first MAX_SAMPLES, so
+ * a trace full of bad lines costs a count per line and no more.
+ * The report is shown once the trace has been read.
+ */
+
+// include needed packages
+import java.util.*;
+
+public class ErrorReport {
+
+    // kinds of errors
+    final static int MALFORMED_LINE = 0;
+    final static int UNSUPPORTED_COMMAND = 1;
+    final static int NUM_KINDS = 2;
+
+    final static String[] KIND_NAMES = {
+        "Malformed lines",
+        "Unsupported commands"
+    };
+
+    // errors kept with their line
+    final static int MAX_SAMPLES = 20;
+
+    private long errors;                       // errors of every kind
+    private long[] kindCounts = new long[NUM_KINDS];
+    private int maxErrors = -1;                // limit given to the decoder
+    private boolean aborted;                   // the limit was passed
+
+    private int numSamples;
+    private long[] sampleLines = new long[MAX_SAMPLES];
+    private int[] sampleKinds = new int[MAX_SAMPLES];
+    private String[] sampleMessages = new String[MAX_SAMPLES];
+    private String[] sampleText = new String[MAX_SAMPLES];
+    private String[] sampleFiles = new String[MAX_SAMPLES];
+
+    /* counts an error, keeping it as a sample if there is room.
+       message and text may be null for errors that are only counted. */
+    public void add(long lineNum, int kind, String message, String text) {
+        errors++;
+        kindCounts[kind]++;
+        if (message != null && numSamples < MAX_SAMPLES) {
+            sampleLines[numSamples] = lineNum;
+            sampleKinds[numSamples] = kind;
+            sampleMessages[numSamples] = message;
+            sampleText[numSamples] = text;
+            numSamples++;
+        }
+    }
+
+    /* adds the errors of a report for a later part of the trace,
+       whose lines are numbered from firstLine on */
+    public void addAll(ErrorReport r, long firstLine) {
+        addAll(r, firstLine, null);
+    }
+
+    /* same as above for a report of one of several traces,
+       whose samples are labeled with the file name */
+    public void addAll(ErrorReport r, long firstLine, String fileName) {
+        errors = errors+r.errors;
+        for (int k=0;k<NUM_KINDS;k++)
+            kindCounts[k] = kindCounts[k]+r.kindCounts[k];
+        for (int i=0;i<r.numSamples && numSamples<MAX_SAMPLES;i++) {
+            sampleLines[numSamples] = firstLine+r.sampleLines[i];
+            sampleKinds[numSamples] = r.sampleKinds[i];
+            sampleMessages[numSamples] = r.sampleMessages[i];
+            sampleText[numSamples] = r.sampleText[i];
+            sampleFiles[numSamples] = fileName;
+            numSamples++;
+        }
+    }
+
+    /* the report as text, for ErrorReportDialog */
+    public String getText() {
+        StringBuffer sb = new StringBuffer();
+        sb.append(errors+" line(s) could not be decoded");
+        if (aborted)
+            sb.append(", stopped after more than "+maxErrors);
+        sb.append(".\n\n");
+
+        for (int k=0;k<NUM_KINDS;k++) {
+            if (kindCounts[k] > 0)
+                sb.append(KIND_NAMES[k]+": "+kindCounts[k]+"\n");
+        }
+
+        if (numSamples > 0) {
+            sb.append("\n");
+            if (numSamples < errors)
+                sb.append("The first "+numSamples+":\n");
+            for (int i=0;i<numSamples;i++) {
+                if (sampleFiles[i] != null)
+                    sb.append(sampleFiles[i]+" ");
+                sb.append("Line "+sampleLines[i]+": "+
+                        sampleMessages[i]+"\n");
+                if (sampleText[i] != null)
+                    sb.append("    "+sampleText[i]+"\n");
+            }
+        }
+        return sb.toString();
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getKindCount(int kind) {
+        return kindCounts[kind];
+    }
+
+    public int getNumSamples() {
+        return numSamples;
+    }
+
+    public long getSampleLine(int i) {
+        return sampleLines[i];
+    }
+
+    public int getSampleKind(int i) {
+        return sampleKinds[i];
+    }
+
+    public String getSampleMessage(int i) {
+        return sampleMessages[i];
+    }
+
+    public String getSampleText(int i) {
+        return sampleText[i];
+    }
+
+    // the file of sample i if several traces were read, else null
+    public String getSampleFile(int i) {
+        return sampleFiles[i];
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /* marks the report of a decode that gave up after maxErr errors */
+    public void setAborted(boolean b, int maxErr) {
+        aborted = b;
+        maxErrors = maxErr;
+    }
+}
@@ -0,0 +1,50 @@
+/* ErrorReportDialog.java
+ *
+ * Created October 17, 2026
+ *
+ * This class creates a dialog that shows the ErrorReport of
+ * a trace once it has been read, instead of one message box
+ * per bad line.  It does not block the rest of the tool.
+ */
+
+// include needed packages
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+public class ErrorReportDialog extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    JFrame frame;     // frame that holds the dialog
+
+    public ErrorReportDialog(JFrame f, String heading, ErrorReport report) {
+        this.frame = f;
+
+        // create the panel that holds the report and button
+        JPanel reportPanel = new JPanel();
+        reportPanel.setPreferredSize(new Dimension(500,300));
+
+        JTextArea text = new JTextArea(report.getText());
+        text.setEditable(false);
+        text.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        text.setCaretPosition(0);
+
+        // OK button
+        JButton okButton = new JButton("Ok");
+        okButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                frame.dispose();
+            }
+        });
+
+        reportPanel.setLayout(new BorderLayout());
+        reportPanel.add(new JLabel(heading), BorderLayout.NORTH);
+        reportPanel.add(new JScrollPane(text), BorderLayout.CENTER);
+        reportPanel.add(okButton, BorderLayout.SOUTH);
+
+        // add the panel into the dialog's main panel
+        setLayout(new BorderLayout());
+        add(reportPanel, BorderLayout.CENTER);
+    }
+}
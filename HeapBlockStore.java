@@ -0,0 +1,178 @@
+/* HeapBlockStore.java
+ *
+ * Created October 17, 2026
+ *
+ * This class keeps the blocks of a BlockStore in growable
+ * primitive arrays on the Java heap, one array per column.
+ * A block takes about 26 bytes and adding blocks only
+ * allocates when the arrays have to grow.
+ */
+
+// include needed packages
+import java.util.*;
+
+public class HeapBlockStore extends BlockStore {
+
+    final static int INITIAL_CAPACITY = 1024;
+    // most blocks an array can hold, a store off the heap holds more
+    final static int MAX_CAPACITY = Integer.MAX_VALUE-8;
+
+    private int size;               // number of blocks
+
+    private double[] transStarts;   // start of the transaction
+    private int[] ids;              // transaction ID
+    private int[] rows;
+    private int[] cols;
+    private short[] ranks;
+    private short[] banks;
+    private byte[] kinds;           // BlockKind code
+    private byte[] channels;        // which trace it came from
+
+    public HeapBlockStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public HeapBlockStore(int capacity) {
+        allocate(Math.max(capacity, 16));
+    }
+
+    public void add(int id, int kind,
+            int rank, int bank, int row, int col, double transStart) {
+        if (size == ids.length)
+            grow(size+1);
+        int i = size++;
+        ids[i] = id;
+        kinds[i] = (byte)kind;
+        ranks[i] = (short)rank;
+        banks[i] = (short)bank;
+        rows[i] = row;
+        cols[i] = col;
+        transStarts[i] = transStart;
+        channels[i] = 0;
+    }
+
+    public void add(BlockStore s, long i) {
+        if (!(s instanceof HeapBlockStore)) {
+            super.add(s, i);
+            return;
+        }
+        if (size == ids.length)
+            grow(size+1);
+        copy((HeapBlockStore)s, (int)i, this, size, 1);
+        size++;
+    }
+
+    /* copies whole columns when both stores are on the heap */
+    public void addAll(BlockStore b) {
+        if (!(b instanceof HeapBlockStore)) {
+            super.addAll(b);
+            return;
+        }
+        HeapBlockStore s = (HeapBlockStore)b;
+        if ((long)size+s.size > ids.length)
+            grow((int)Math.min((long)size+s.size, Integer.MAX_VALUE));
+        copy(s, 0, this, size, s.size);
+        size = size+s.size;
+    }
+
+    public BlockStore newStore(long capacity) {
+        BlockStore s = new HeapBlockStore(
+                (int)Math.min(capacity, MAX_CAPACITY));
+        s.setCommandsOnly(commandsOnly);
+        s.setTiming(timing);
+        return s;
+    }
+
+    public void truncate(long n) {
+        size = (int)Math.min(size, n);
+    }
+
+    public void setChannel(long first, int c) {
+        Arrays.fill(channels, (int)first, size, (byte)c);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    private void allocate(int n) {
+        transStarts = new double[n];
+        ids = new int[n];
+        rows = new int[n];
+        cols = new int[n];
+        ranks = new short[n];
+        banks = new short[n];
+        kinds = new byte[n];
+        channels = new byte[n];
+    }
+
+    /* makes room for at least n blocks, growing by half */
+    private void grow(int n) {
+        if (n > MAX_CAPACITY)
+            throw new IllegalStateException("too many blocks for the heap");
+        int cap = (int)Math.min(MAX_CAPACITY,
+                Math.max(n, ids.length+(long)(ids.length>>1)));
+        transStarts = Arrays.copyOf(transStarts, cap);
+        ids = Arrays.copyOf(ids, cap);
+        rows = Arrays.copyOf(rows, cap);
+        cols = Arrays.copyOf(cols, cap);
+        ranks = Arrays.copyOf(ranks, cap);
+        banks = Arrays.copyOf(banks, cap);
+        kinds = Arrays.copyOf(kinds, cap);
+        channels = Arrays.copyOf(channels, cap);
+    }
+
+    private static void copy(HeapBlockStore s, int from, HeapBlockStore d,
+            int to, int n) {
+        System.arraycopy(s.transStarts, from, d.transStarts, to, n);
+        System.arraycopy(s.ids, from, d.ids, to, n);
+        System.arraycopy(s.rows, from, d.rows, to, n);
+        System.arraycopy(s.cols, from, d.cols, to, n);
+        System.arraycopy(s.ranks, from, d.ranks, to, n);
+        System.arraycopy(s.banks, from, d.banks, to, n);
+        System.arraycopy(s.kinds, from, d.kinds, to, n);
+        System.arraycopy(s.channels, from, d.channels, to, n);
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public int getID(long i) {
+        return ids[(int)i];
+    }
+
+    public int getKind(long i) {
+        return kinds[(int)i];
+    }
+
+    public double getTransactionStartTime(long i) {
+        return transStarts[(int)i];
+    }
+
+    public int getRank(long i) {
+        return ranks[(int)i];
+    }
+
+    public int getBank(long i) {
+        return banks[(int)i];
+    }
+
+    public int getRow(long i) {
+        return rows[(int)i];
+    }
+
+    public int getCol(long i) {
+        return cols[(int)i];
+    }
+
+    public int getChannel(long i) {
+        return channels[(int)i];
+    }
+}
@@ -0,0 +1,94 @@
+/* IndexWorker.java
+ *
+ * Created October 17, 2026
+ *
+ * This class indexes the blocks of the diagram on a background
+ * thread: into the lanes of the diagram (see LaneIndex) and by
+ * transaction (see TransactionIndex), after converting them to the
+ * way the diagram keeps them if they are kept another way.  It is
+ * started when the blocks are switched between keeping only the
+ * commands and keeping every block, which takes as long as there
+ * are blocks, and when a binary trace was mapped and shown without
+ * indexes.
+ *
+ * The diagram keeps showing the blocks it has, with the indexes it
+ * has, until VisTool swaps the new ones in when the worker is done,
+ * so the event thread never waits for an index.  Nothing may change
+ * the blocks being indexed meanwhile; VisTool holds back the steps
+ * of the follower until then.
+ */
+
+// include needed packages
+import javax.swing.*;
+import java.util.concurrent.*;
+
+public class IndexWorker extends SwingWorker<Object, Object> {
+
+    private VisTool parent;
+    private BlockSource from;       // the blocks to index
+    private boolean derive;         // keep only the command blocks
+    private BlockStore blocks;      // they, converted if need be
+    private LaneIndex lanes;
+    private TransactionIndex index;
+    private boolean failed;         // the blocks could not be indexed
+
+    public IndexWorker(VisTool p, BlockSource s, boolean derive) {
+        parent = p;
+        from = s;
+        this.derive = derive;
+    }
+
+    protected Object doInBackground() {
+        blocks = parent.convertBlocks(from, derive);
+        lanes = new LaneIndex(parent, blocks);
+        index = new TransactionIndex(blocks);
+        return null;
+    }
+
+    protected void done() {
+        try {
+            get();
+        } catch (ExecutionException ee) {
+            failed = true;
+        } catch (InterruptedException ie) {
+            return;
+        }
+        parent.finishIndexing(this);
+    }
+
+    /* frees what was made, when VisTool does not take it */
+    public void close() {
+        if (index != null)
+            index.close();
+        if (lanes != null)
+            lanes.close();
+        if (blocks != null && blocks != from)
+            blocks.close();
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public BlockSource getSource() {
+        return from;
+    }
+
+    public BlockStore getBlocks() {
+        return blocks;
+    }
+
+    public LaneIndex getLaneIndex() {
+        return lanes;
+    }
+
+    public TransactionIndex getTransactionIndex() {
+        return index;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+}
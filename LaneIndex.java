@@ -0,0 +1,353 @@
+/* LaneIndex.java
+ *
+ * Created October 17, 2026
+ *
+ * This class splits the blocks of a BlockStore into lanes, the
+ * rows of the expanded timing diagram: one lane per bus, except
+ * that the bank utilization bus has a lane per rank and bank and
+ * the device utilization bus a lane per rank.  Each lane holds
+ * the entries of the store its blocks come from, in store order,
+ * which is transaction start order.  It also keeps how long after
+ * its transaction a block starts at the earliest and ends at the
+ * latest, so the blocks of a lane that overlap a time range are
+ * found with a binary search on the transaction start times of
+ * the store followed by a scan of the blocks in the range.
+ *
+ * An entry is the index of the block in the store.  When the
+ * store keeps only commands it is the index of the command, with
+ * the number of the block derived from it in the low DERIVED_BITS
+ * bits, and the block is derived again when it is looked at.  The
+ * entries of a lane are a LongColumn, which is kept in the file of
+ * the store when the store is off the heap, so the index takes
+ * next to none of the heap whatever the number of blocks.
+ *
+ * The lanes also keep which kinds of blocks they hold, so when the
+ * store moves to another BlockTiming only how far their blocks
+ * reach is worked out again (retime()) and the entries stay.
+ *
+ * A Cursor looks the blocks up for one paint.  Several cursors
+ * can read the lanes at the same time, as long as no blocks are
+ * added meanwhile.  When blocks are merged into the end of the
+ * store the lanes are truncated to where the merge starts and the
+ * entries from there on are added again.
+ *
+ * The TraceLoadWorker indexes the chunks of a load on its own
+ * thread while the lanes are painted (add(BlockSource, long)).
+ * What the cursors see only moves on when the event thread
+ * publishes the sizes the lanes had once a chunk was indexed
+ * (mark()), so the entries added meanwhile stay out of sight.
+ */
+
+// include needed packages
+import java.util.*;
+
+public class LaneIndex {
+
+    // bits of an entry that number the block derived from a command
+    final static int DERIVED_BITS = 3;
+    final static long DERIVED_MASK = (1<<DERIVED_BITS)-1;
+
+    private VisTool parent;       // derives the blocks of commands
+    private BlockSource store;    // the blocks being indexed
+    private boolean derive;       // store keeps only the commands
+    private Hashtable<Long, Lane> lanes =     // Lane by key()
+            new Hashtable<Long, Lane>();
+    private Vector<Lane> laneList = new Vector<Lane>(); // lanes in
+                                  //   order found
+    private int numShown;         // lanes published
+
+    private Cursor cursor;        // used by getBlock()
+
+    public LaneIndex(VisTool p, BlockSource s) {
+        parent = p;
+        store = s;
+        derive = s.isCommandsOnly();
+        cursor = new Cursor();
+        add(0);
+    }
+
+    /* the lanes of only the entries of s from first up to end,
+       for a part of the store that is looked at before the whole
+       of it is indexed */
+    public LaneIndex(VisTool p, BlockSource s, long first, long end) {
+        parent = p;
+        store = s;
+        derive = s.isCommandsOnly();
+        cursor = new Cursor();
+        add(store, first, end, 0, cursor.derived);
+        publish(mark());
+    }
+
+    /* indexes the entries of the store from first on, after they
+       were appended to it, and shows them */
+    public void add(long first) {
+        add(store, first, store.size(), 0, cursor.derived);
+        cursor.derivedEntry = -1;
+        publish(mark());
+    }
+
+    /* indexes the entries of s as the entries of the store from
+       first on, before s is added to the store.  Runs on the
+       thread of a load; they are shown once they are published. */
+    public void add(BlockSource s, long first) {
+        add(s, 0, s.size(), first, new HeapBlockStore(16));
+    }
+
+    // indexes the entries of s from first up to end as the
+    // entries of the store offset after them
+    private void add(BlockSource s, long first, long end, long offset,
+            BlockStore derived) {
+        for (long p=first;p<end;p++) {
+            if (derive) {
+                parent.deriveBlocks(s, p, derived);
+                for (long k=0;k<derived.size();k++)
+                    add(derived, k, offset+p);
+            } else {
+                add(s, p, offset+p);
+            }
+        }
+    }
+
+    /* the number of entries of every lane indexed so far, to be
+       published once the blocks they come from are in the store */
+    public long[] mark() {
+        long[] sizes = new long[laneList.size()];
+        for (int i=0;i<sizes.length;i++)
+            sizes[i] = laneList.elementAt(i).entries.size();
+        return sizes;
+    }
+
+    /* shows the lanes with the entries they had when sizes was
+       marked, and works out how far their blocks reach.  Called
+       on the event thread while no cursor reads the lanes. */
+    public void publish(long[] sizes) {
+        for (int i=0;i<sizes.length;i++) {
+            Lane l = laneList.elementAt(i);
+            l.size = sizes[i];
+            l.retime();
+        }
+        numShown = sizes.length;
+    }
+
+    /* drops the entries of the store from first on from the lanes,
+       before the store is truncated to first.  How far the blocks
+       of a lane reach from their transaction is left as it was,
+       which only makes the searches look at a few more blocks. */
+    public void truncate(long first) {
+        for (int i=0;i<laneList.size();i++) {
+            Lane l = laneList.elementAt(i);
+            // the entries of a lane are in store order
+            long lo = 0;
+            long hi = l.size();
+            while (lo < hi) {
+                long mid = (lo+hi) >>> 1;
+                if (l.getEntry(mid) < first)
+                    lo = mid+1;
+                else
+                    hi = mid;
+            }
+            l.entries.truncate(lo);
+            l.size = lo;
+        }
+        cursor.derivedEntry = -1;
+    }
+
+    /* puts block i of s, which comes from entry p of the store,
+       into its lane */
+    private void add(BlockSource s, long i, long p) {
+        int bus = s.getBusID(i);
+        int rank = 0;
+        int bank = 0;
+        if (bus == VisTool.BANK_UTIL) {
+            rank = s.getRank(i);
+            bank = s.getBank(i);
+        } else if (bus == VisTool.DEV_UTIL) {
+            rank = s.getRank(i);
+        }
+
+        Long k = Long.valueOf(key(bus, rank, bank));
+        Lane l = lanes.get(k);
+        if (l == null) {
+            l = new Lane(bus, rank, bank);
+            laneList.addElement(l);
+            lanes.put(k, l);
+        }
+        l.add(derive ? (p<<DERIVED_BITS)+i : p, s.getKind(i));
+    }
+
+    /* works out how far the blocks of every lane reach from their
+       transaction again, after the store moved to another timing */
+    public void retime() {
+        for (int i=0;i<numShown;i++)
+            laneList.elementAt(i).retime();
+        cursor.derivedEntry = -1;
+    }
+
+    /* gives the columns of the lanes back to the file of the
+       store, the index can not be used afterwards */
+    public void close() {
+        for (int i=0;i<laneList.size();i++)
+            laneList.elementAt(i).entries.close();
+        laneList.clear();
+        lanes.clear();
+        numShown = 0;
+    }
+
+    private static long key(int bus, int rank, int bank) {
+        return ((long)bus<<32) | ((rank & 0xffffL)<<16) | (bank & 0xffffL);
+    }
+
+    /* moves the cursor to block q of lane l and returns it.  The
+       cursor is shared, it is only good until the next call. */
+    public TimeBlock getBlock(Lane l, long q) {
+        return cursor.getBlock(l, q);
+    }
+
+    /* a cursor of its own, for a paint that runs next to others */
+    public Cursor newCursor() {
+        return new Cursor();
+    }
+
+    /* the first position in lane l from which on every block
+       starts at or after t.  Blocks before it may start after t
+       as well. */
+    public long firstAtOrAfter(Lane l, double t) {
+        return firstTransaction(l, t-l.minStart);
+    }
+
+    /* the first position in lane l whose block may still end
+       after t; every block before it ends at or before t */
+    public long firstEndingAfter(Lane l, double t) {
+        return firstTransaction(l, t-l.maxEnd);
+    }
+
+    /* the first position in lane l whose transaction starts at
+       or after t */
+    private long firstTransaction(Lane l, double t) {
+        long lo = 0;
+        long hi = l.size();
+        while (lo < hi) {
+            long mid = (lo+hi) >>> 1;
+            if (store.getTransactionStartTime(l.getEntry(mid)) < t)
+                lo = mid+1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public BlockSource getStore() {
+        return store;
+    }
+
+    public int getNumLanes() {
+        return numShown;
+    }
+
+    public Lane getLane(int i) {
+        return laneList.elementAt(i);
+    }
+
+    // the lane of a bus, rank and bank, null if it has no blocks
+    // shown
+    public Lane getLane(int bus, int rank, int bank) {
+        if (bus != VisTool.BANK_UTIL)
+            bank = 0;
+        if (bus != VisTool.BANK_UTIL && bus != VisTool.DEV_UTIL)
+            rank = 0;
+        Lane l = lanes.get(Long.valueOf(key(bus, rank, bank)));
+        return (l == null || l.size == 0) ? null : l;
+    }
+
+    // Looks up the blocks of references, with a block of its own
+    class Cursor {
+        BlockStore derived = new HeapBlockStore(16); // blocks of
+        long derivedEntry = -1;                      //   this command
+        TimeBlock block = new TimeBlock(derive ? derived : store);
+
+        /* moves the cursor to block q of lane l and returns it,
+           it is only good until the next call */
+        public TimeBlock getBlock(Lane l, long q) {
+            long e = l.entries.get(q);
+            if (!derive)
+                return block.moveTo(e);
+
+            long p = e >>> DERIVED_BITS;
+            if (p != derivedEntry) {
+                parent.deriveBlocks(store, p, derived);
+                derivedEntry = p;
+            }
+            return block.moveTo(e & DERIVED_MASK);
+        }
+    }
+
+    // The blocks of one row of the diagram, in transaction order
+    class Lane {
+        int bus;
+        int rank;              // for BANK_UTIL and DEV_UTIL
+        int bank;              // for BANK_UTIL
+        LongColumn entries =   // store entries of the blocks
+                new LongColumn(store.getPageFile());
+        long size;             // entries published
+        int kinds;             // bit per BlockKind of its blocks
+        double minStart = Double.POSITIVE_INFINITY; // earliest start
+        double maxEnd = Double.NEGATIVE_INFINITY;   //   and latest end
+                               //   of a block after its transaction
+
+        Lane(int b, int r, int k) {
+            bus = b;
+            rank = r;
+            bank = k;
+        }
+
+        // publish() works out how far the kinds reach
+        void add(long e, int kind) {
+            entries.add(e);
+            kinds |= 1<<kind;
+        }
+
+        // takes the blocks of a kind into minStart and maxEnd
+        private void reach(int kind, BlockTiming t) {
+            minStart = Math.min(minStart, t.getStart(kind));
+            maxEnd = Math.max(maxEnd, t.getEnd(kind));
+        }
+
+        void retime() {
+            BlockTiming t = store.getTiming();
+            minStart = Double.POSITIVE_INFINITY;
+            maxEnd = Double.NEGATIVE_INFINITY;
+            for (int k=0;k<BlockKind.getNumKinds();k++) {
+                if ((kinds & (1<<k)) != 0)
+                    reach(k, t);
+            }
+        }
+
+        public int getBus() {
+            return bus;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public int getBank() {
+            return bank;
+        }
+
+        // the store entry of block q
+        long getEntry(long q) {
+            long e = entries.get(q);
+            return derive ? e >>> DERIVED_BITS : e;
+        }
+
+        public long size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/* LoadProgressDialog.java
+ *
+ * Created October 17, 2026
+ *
+ * This class creates a dialog that shows the progress
+ * of a trace file being loaded in the background, with
+ * the read rate in bytes and commands per second, and a
+ * button to cancel the load.
+ */
+
+// include needed packages
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+public class LoadProgressDialog extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    JFrame frame;          // frame that holds the dialog
+    JLabel fileLabel;      // what is being done to which file
+    String fileName;
+    JProgressBar progressBar;
+    JLabel sizeLabel;      // bytes read out of the file size
+    JLabel rateLabel;      // bytes/sec and commands/sec
+
+    public LoadProgressDialog(JFrame f, final TraceLoadWorker worker) {
+        this.frame = f;
+
+        // create the panel that holds the progress and button
+        JPanel loadPanel = new JPanel();
+        loadPanel.setPreferredSize(new Dimension(350,130));
+
+        progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        sizeLabel = new JLabel(" ");
+        rateLabel = new JLabel(" ");
+
+        // Cancel button
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                // the worker closes the frame once it has stopped
+                worker.cancelLoad();
+            }
+        });
+
+        // Create panel for the progress bar and labels
+        JPanel box = new JPanel();
+        box.setLayout(new BoxLayout(box, BoxLayout.Y_AXIS));
+        fileName = worker.getFile().getName();
+        if (worker.getFiles().length > 1)
+            fileName = worker.getFiles().length+" files";
+        fileLabel = new JLabel("Loading "+fileName);
+        box.add(fileLabel);
+        box.add(progressBar);
+        box.add(sizeLabel);
+        box.add(rateLabel);
+
+        loadPanel.setLayout(new BorderLayout());
+        loadPanel.add(box, BorderLayout.NORTH);
+        loadPanel.add(cancelButton, BorderLayout.SOUTH);
+
+        // add the panel into the dialog's main panel
+        setLayout(new BorderLayout());
+        add(loadPanel, BorderLayout.CENTER);
+    }
+
+    /* shows how far the load has gone after the given seconds */
+    public void setProgress(long bytes, long size, long commands,
+            double seconds) {
+        if (size > 0)
+            progressBar.setValue((int)(1000*bytes/size));
+
+        sizeLabel.setText(megabytes(bytes)+" of "+megabytes(size)+" MB");
+
+        if (seconds > 0) {
+            rateLabel.setText(megabytes((long)(bytes/seconds))+" MB/sec, "+
+                    (long)(commands/seconds)+" commands/sec");
+        }
+    }
+
+    /* shows whether the trace is being indexed before the
+       time window is loaded */
+    public void setIndexing(boolean b) {
+        fileLabel.setText((b ? "Indexing " : "Loading ")+fileName);
+    }
+
+    private static String megabytes(long bytes) {
+        return String.valueOf(Math.round(bytes/104857.6)/10.0);
+    }
+}
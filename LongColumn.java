@@ -0,0 +1,82 @@
+/* LongColumn.java
+ *
+ * Created October 17, 2026
+ *
+ * This class is a growable column of longs for the indexes of a
+ * BlockStore.  It is kept in an array on the Java heap, or, for a
+ * store kept off the heap, in pages of PAGE_LONGS longs mapped from
+ * the PageFile of the store, so the index does not take more of
+ * the heap than the store does.
+ *
+ * One thread adds to a column while others read the values it
+ * added before; the arrays are volatile so a reader that finds
+ * one that was grown also finds the values copied into it.
+ */
+
+// include needed packages
+import java.nio.*;
+import java.util.*;
+
+public class LongColumn {
+
+    final static int PAGE_SHIFT = 16;
+    final static int PAGE_LONGS = 1<<PAGE_SHIFT;
+    final static int PAGE_MASK = PAGE_LONGS-1;
+
+    private PageFile file;          // where the pages are, null if
+    private volatile long[] values; //   the values are on the heap
+    private volatile MappedByteBuffer[] pages;
+    private int numPages;
+    private long size;
+
+    public LongColumn(PageFile f) {
+        file = f;
+        if (file == null)
+            values = new long[16];
+        else
+            pages = new MappedByteBuffer[16];
+    }
+
+    public void add(long v) {
+        if (file == null) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, (int)Math.min(
+                        size+(size>>1), Integer.MAX_VALUE-8));
+            values[(int)size++] = v;
+            return;
+        }
+        if ((size & PAGE_MASK) == 0 && (size >>> PAGE_SHIFT) == numPages) {
+            if (numPages == pages.length)
+                pages = Arrays.copyOf(pages, 2*numPages);
+            pages[numPages++] = file.map(8*PAGE_LONGS);
+        }
+        pages[(int)(size >>> PAGE_SHIFT)].putLong(
+                (int)(size & PAGE_MASK)<<3, v);
+        size++;
+    }
+
+    public long get(long i) {
+        if (file == null)
+            return values[(int)i];
+        return pages[(int)(i >>> PAGE_SHIFT)].getLong(
+                (int)(i & PAGE_MASK)<<3);
+    }
+
+    /* drops the values from index n on */
+    public void truncate(long n) {
+        size = Math.min(size, n);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /* gives the pages back to the file, the column can not be
+       used afterwards */
+    public void close() {
+        for (int i=0;i<numPages;i++)
+            file.free(pages[i]);
+        numPages = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,160 @@
+/* MappedBlockStore.java
+ *
+ * Created October 17, 2026
+ *
+ * This class keeps the blocks of a BlockStore in a temporary
+ * file that is mapped into memory, so the operating system pages
+ * them in and out and the Java heap only holds the mapped
+ * segments.  The file is split into segments of SEGMENT_BLOCKS
+ * blocks, and inside a segment every column is kept together:
+ *
+ *     SEGMENT_BLOCKS * double  transaction start
+ *     SEGMENT_BLOCKS * int     transaction ID, row, column
+ *     SEGMENT_BLOCKS * short   rank, bank
+ *     SEGMENT_BLOCKS * byte    kind, channel
+ *
+ * A new segment is mapped whenever the last one is full.  The
+ * segments are pages of a PageFile, which the indexes of the
+ * store keep their columns in as well.  The file is deleted when
+ * the store is closed.
+ */
+
+// include needed packages
+import java.nio.*;
+
+public class MappedBlockStore extends BlockStore {
+
+    final static int SEGMENT_SHIFT = 16;
+    final static int SEGMENT_BLOCKS = 1<<SEGMENT_SHIFT;
+    final static int SEGMENT_MASK = SEGMENT_BLOCKS-1;
+
+    // where the columns start in a segment
+    final static int TRANS_START = 0;
+    final static int ID = TRANS_START+8*SEGMENT_BLOCKS;
+    final static int ROW = ID+4*SEGMENT_BLOCKS;
+    final static int COL = ROW+4*SEGMENT_BLOCKS;
+    final static int RANK = COL+4*SEGMENT_BLOCKS;
+    final static int BANK = RANK+2*SEGMENT_BLOCKS;
+    final static int KIND = BANK+2*SEGMENT_BLOCKS;
+    final static int CHANNEL = KIND+SEGMENT_BLOCKS;
+    final static int SEGMENT_BYTES = CHANNEL+SEGMENT_BLOCKS;
+
+    private PageFile file = new PageFile(); // the temporary file
+    private MappedByteBuffer[] segments = new MappedByteBuffer[16];
+    private int numSegments;
+    private long size;              // number of blocks
+
+    public void add(int id, int kind,
+            int rank, int bank, int row, int col, double transStart) {
+        if ((size & SEGMENT_MASK) == 0 && (size >>> SEGMENT_SHIFT) == numSegments)
+            addSegment();
+        ByteBuffer b = segments[(int)(size >>> SEGMENT_SHIFT)];
+        int i = (int)(size & SEGMENT_MASK);
+        b.putDouble(TRANS_START+(i<<3), transStart);
+        b.putInt(ID+(i<<2), id);
+        b.putInt(ROW+(i<<2), row);
+        b.putInt(COL+(i<<2), col);
+        b.putShort(RANK+(i<<1), (short)rank);
+        b.putShort(BANK+(i<<1), (short)bank);
+        b.put(KIND+i, (byte)kind);
+        b.put(CHANNEL+i, (byte)0);
+        size++;
+    }
+
+    /* maps the next segment of the file */
+    private void addSegment() {
+        if (numSegments == segments.length) {
+            MappedByteBuffer[] s = new MappedByteBuffer[2*numSegments];
+            System.arraycopy(segments, 0, s, 0, numSegments);
+            segments = s;
+        }
+        segments[numSegments++] = file.map(SEGMENT_BYTES);
+    }
+
+    public BlockStore newStore(long capacity) {
+        BlockStore s = new MappedBlockStore();
+        s.setCommandsOnly(commandsOnly);
+        s.setTiming(timing);
+        return s;
+    }
+
+    public void truncate(long n) {
+        size = Math.min(size, n);
+    }
+
+    public void setChannel(long first, int c) {
+        for (long i=first;i<size;i++)
+            segments[(int)(i >>> SEGMENT_SHIFT)].put(
+                    CHANNEL+(int)(i & SEGMENT_MASK), (byte)c);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /* drops the segments and deletes the file */
+    public void close() {
+        segments = new MappedByteBuffer[16];
+        numSegments = 0;
+        size = 0;
+        file.close();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isOffHeap() {
+        return true;
+    }
+
+    public PageFile getPageFile() {
+        return file;
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public int getID(long i) {
+        return segments[(int)(i >>> SEGMENT_SHIFT)].getInt(
+                ID+((int)(i & SEGMENT_MASK)<<2));
+    }
+
+    public int getKind(long i) {
+        return segments[(int)(i >>> SEGMENT_SHIFT)].get(
+                KIND+(int)(i & SEGMENT_MASK));
+    }
+
+    public double getTransactionStartTime(long i) {
+        return segments[(int)(i >>> SEGMENT_SHIFT)].getDouble(
+                TRANS_START+((int)(i & SEGMENT_MASK)<<3));
+    }
+
+    public int getRank(long i) {
+        return segments[(int)(i >>> SEGMENT_SHIFT)].getShort(
+                RANK+((int)(i & SEGMENT_MASK)<<1));
+    }
+
+    public int getBank(long i) {
+        return segments[(int)(i >>> SEGMENT_SHIFT)].getShort(
+                BANK+((int)(i & SEGMENT_MASK)<<1));
+    }
+
+    public int getRow(long i) {
+        return segments[(int)(i >>> SEGMENT_SHIFT)].getInt(
+                ROW+((int)(i & SEGMENT_MASK)<<2));
+    }
+
+    public int getCol(long i) {
+        return segments[(int)(i >>> SEGMENT_SHIFT)].getInt(
+                COL+((int)(i & SEGMENT_MASK)<<2));
+    }
+
+    public int getChannel(long i) {
+        return segments[(int)(i >>> SEGMENT_SHIFT)].get(
+                CHANNEL+(int)(i & SEGMENT_MASK));
+    }
+}
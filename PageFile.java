@@ -0,0 +1,82 @@
+/* PageFile.java
+ *
+ * Created October 17, 2026
+ *
+ * This class hands out pages of a temporary file that are mapped
+ * into memory.  A MappedBlockStore keeps its segments in one, and
+ * the indexes of the store keep their columns in the same file
+ * (see LongColumn), so none of them grows the Java heap with the
+ * number of blocks.
+ *
+ * A page that is given back with free() is handed out again for
+ * the next page of the same size, so columns that are rebuilt do
+ * not keep growing the file.  The file is deleted when it is
+ * closed.
+ */
+
+// include needed packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+public class PageFile {
+
+    private File file;              // the temporary file
+    private RandomAccessFile raf;
+    private FileChannel ch;
+    private long length;            // bytes mapped so far
+    private Hashtable<Integer, Vector<MappedByteBuffer>> free = // pages
+            new Hashtable<Integer, Vector<MappedByteBuffer>>(); // given
+                                    //   back, by size
+
+    public PageFile() {
+        try {
+            file = File.createTempFile("vistool", ".blocks");
+            raf = new RandomAccessFile(file, "rw");
+            ch = raf.getChannel();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /* maps a page of the given number of bytes, in native order.
+       A page given back is not cleared. */
+    public synchronized MappedByteBuffer map(int bytes) {
+        Vector<MappedByteBuffer> v = free.get(Integer.valueOf(bytes));
+        if (v != null && !v.isEmpty())
+            return v.remove(v.size()-1);
+        try {
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_WRITE,
+                    length, bytes);
+            b.order(ByteOrder.nativeOrder());
+            length = length+bytes;
+            return b;
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /* gives a page back, it is handed out again by map() */
+    public synchronized void free(MappedByteBuffer b) {
+        Integer k = Integer.valueOf(b.capacity());
+        Vector<MappedByteBuffer> v = free.get(k);
+        if (v == null) {
+            v = new Vector<MappedByteBuffer>();
+            free.put(k, v);
+        }
+        v.addElement(b);
+    }
+
+    /* closes and deletes the file.  The mappings go away once the
+       pages are garbage collected. */
+    public synchronized void close() {
+        free.clear();
+        try {
+            raf.close();
+        } catch (IOException ioe) {
+            // the file is deleted anyway
+        }
+        file.delete();
+    }
+}
@@ -155,7 +155,7 @@ public class ParameterDialog extends JPanel {
                 // redraw and validate
                 parent.validateDRAMType();
                 parent.validateClocks();
-                parent.recreateTimeBlocks();
+                parent.retimeBlocks();
                 parent.repaintDrawingArea();
 
                 // close the dialog
@@ -0,0 +1,229 @@
+/* SegmentedBlockStore.java
+ *
+ * Created October 17, 2026
+ *
+ * This class is a BlockStore made of BlockSources that are only
+ * read, its segments, followed by a store of its own that the
+ * blocks added to it go into, the tail.  The segments are never
+ * changed: truncating into one only uses less of it, and blocks
+ * added after that go into a new tail.  So a trace mapped read-only
+ * (BinaryBlockSource) is the start of a store the follower and the
+ * merges can still add to, and the chunks of a load are added to
+ * the store of the diagram as they are, without copying them
+ * (addSegment()).
+ *
+ * Block i is looked up with a binary search on where the parts
+ * start; there are only a few of them.  The segments, and those
+ * cut off by truncate(), belong to the store and are closed with
+ * it.  Every part keeps its blocks the way the store does.
+ */
+
+// include needed packages
+import java.util.*;
+
+public class SegmentedBlockStore extends BlockStore {
+
+    private BlockSource[] parts = new BlockSource[4]; // segments,
+    private long[] starts = new long[4];    //   then the tail, and
+    private long[] lengths = new long[4];   //   the blocks used of them
+    private int numParts;
+    private BlockStore tail;                // the last part, if any
+    private Vector<BlockSource> dropped =   // segments cut off
+            new Vector<BlockSource>();
+    private PageFile pages;                 // of the first part
+
+    public SegmentedBlockStore(BlockSource s) {
+        commandsOnly = s.isCommandsOnly();
+        timing = s.getTiming();
+        pages = s.getPageFile();
+        addPart(s, s.size());
+    }
+
+    /* adds the blocks of s after those of the store without copying
+       them.  s belongs to the store from now on and must not change;
+       it keeps its blocks the way the store does. */
+    public void addSegment(BlockSource s) {
+        // the tail so far becomes a segment
+        if (tail != null) {
+            lengths[numParts-1] = tail.size();
+            tail = null;
+        }
+        s.setTiming(timing);
+        addPart(s, s.size());
+    }
+
+    private void addPart(BlockSource s, long length) {
+        if (numParts == parts.length) {
+            parts = Arrays.copyOf(parts, 2*numParts);
+            starts = Arrays.copyOf(starts, 2*numParts);
+            lengths = Arrays.copyOf(lengths, 2*numParts);
+        }
+        starts[numParts] = size();
+        parts[numParts] = s;
+        lengths[numParts] = length;
+        numParts++;
+    }
+
+    public void add(int id, int kind,
+            int rank, int bank, int row, int col, double transStart) {
+        if (tail == null) {
+            tail = (pages != null) ? new MappedBlockStore() :
+                    new HeapBlockStore();
+            tail.setCommandsOnly(commandsOnly);
+            tail.setTiming(timing);
+            addPart(tail, 0);
+        }
+        tail.add(id, kind, rank, bank, row, col, transStart);
+    }
+
+    public BlockStore newStore(long capacity) {
+        BlockStore s = isOffHeap(capacity) ? new MappedBlockStore() :
+                new HeapBlockStore((int)Math.min(capacity,
+                        HeapBlockStore.MAX_CAPACITY));
+        s.setCommandsOnly(commandsOnly);
+        s.setTiming(timing);
+        return s;
+    }
+
+    /* the tail is truncated, a segment is only used up to n and
+       the parts after it are dropped */
+    public void truncate(long n) {
+        if (n >= size())
+            return;
+        int k = partOf(n);
+        if (parts[k] == tail) {
+            tail.truncate(n-starts[k]);
+            return;
+        }
+        for (int i=k+1;i<numParts;i++) {
+            if (parts[i] != tail)
+                dropped.addElement(parts[i]);
+        }
+        if (tail != null) {
+            tail.close();
+            tail = null;
+        }
+        lengths[k] = n-starts[k];
+        numParts = k+1;
+        if (lengths[k] == 0) {
+            dropped.addElement(parts[k]);
+            numParts = k;
+        }
+        Arrays.fill(parts, numParts, parts.length, null);
+    }
+
+    /* only the blocks added to the store can be put into another
+       channel, the segments are read-only */
+    public void setChannel(long first, int c) {
+        long t = size()-(tail == null ? 0 : tail.size());
+        if (first < t)
+            throw new IllegalArgumentException(
+                    "block "+first+" is in a read-only segment");
+        tail.setChannel(first-t, c);
+    }
+
+    public void clear() {
+        truncate(0);
+    }
+
+    public void close() {
+        for (int i=0;i<numParts;i++)
+            parts[i].close();
+        for (int i=0;i<dropped.size();i++)
+            dropped.elementAt(i).close();
+        dropped.clear();
+        Arrays.fill(parts, null);
+        numParts = 0;
+        tail = null;
+    }
+
+    public long size() {
+        if (numParts == 0)
+            return 0;
+        int k = numParts-1;
+        return starts[k]+(parts[k] == tail ? tail.size() : lengths[k]);
+    }
+
+    // only the commands are kept if a segment can keep nothing else
+    public boolean isCommandsOnlyAlways() {
+        for (int i=0;i<numParts;i++) {
+            if (parts[i].isCommandsOnlyAlways())
+                return true;
+        }
+        return false;
+    }
+
+    public void setTiming(BlockTiming t) {
+        super.setTiming(t);
+        for (int i=0;i<numParts;i++)
+            parts[i].setTiming(t);
+    }
+
+    public boolean isOffHeap() {
+        return pages != null;
+    }
+
+    public PageFile getPageFile() {
+        return pages;
+    }
+
+    // the part block i is in
+    private int partOf(long i) {
+        int lo = 0;
+        int hi = numParts-1;
+        while (lo < hi) {
+            int mid = (lo+hi+1) >>> 1;
+            if (starts[mid] <= i)
+                lo = mid;
+            else
+                hi = mid-1;
+        }
+        return lo;
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public int getID(long i) {
+        int k = partOf(i);
+        return parts[k].getID(i-starts[k]);
+    }
+
+    public int getKind(long i) {
+        int k = partOf(i);
+        return parts[k].getKind(i-starts[k]);
+    }
+
+    public double getTransactionStartTime(long i) {
+        int k = partOf(i);
+        return parts[k].getTransactionStartTime(i-starts[k]);
+    }
+
+    public int getRank(long i) {
+        int k = partOf(i);
+        return parts[k].getRank(i-starts[k]);
+    }
+
+    public int getBank(long i) {
+        int k = partOf(i);
+        return parts[k].getBank(i-starts[k]);
+    }
+
+    public int getRow(long i) {
+        int k = partOf(i);
+        return parts[k].getRow(i-starts[k]);
+    }
+
+    public int getCol(long i) {
+        int k = partOf(i);
+        return parts[k].getCol(i-starts[k]);
+    }
+
+    public int getChannel(long i) {
+        int k = partOf(i);
+        return parts[k].getChannel(i-starts[k]);
+    }
+}
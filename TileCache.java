@@ -0,0 +1,163 @@
+/* TileCache.java
+ *
+ * Created October 17, 2026
+ *
+ * This class keeps pieces of the timing diagram that were already
+ * painted, so scrolling back over them only copies the images.
+ * The diagram is cut into tiles of TILE_WIDTH pixels across and
+ * the full height of the drawing area, and a tile is kept by the
+ * zoom (pixels per nanosecond), the view it was painted in and
+ * its number from the left.  Zoomed far in there are more tiles
+ * across than an int counts, so they are numbered by a long.
+ *
+ * The tiles that were used longest ago are dropped once the
+ * tiles take more than the room given to the cache.  The cache
+ * does not know what a tile shows, so it has to be cleared
+ * whenever the blocks, the timing or the window change.  Blocks
+ * added at the end of the time only drop the tiles from where
+ * they start on (dropFrom).
+ */
+
+// include needed packages
+import java.awt.image.*;
+import java.util.*;
+
+public class TileCache {
+
+    // width of a tile in pixels
+    final static int TILE_WIDTH = 256;
+
+    // most room the tiles take, and share of the heap at most
+    final static long MAX_BYTES = 64L<<20;
+    final static int HEAP_SHARE = 8;
+
+    private Key probe = new Key(0, 0, 0); // looks tiles up without
+                                //   making a Key each time
+    private long maxBytes;      // room the tiles may take
+    private long bytes;         // room they take now
+    private LinkedHashMap<Key, BufferedImage> tiles = // least
+            new LinkedHashMap<Key, BufferedImage>(16, 0.75f, true);
+                                //   recently used first
+
+    public TileCache() {
+        this(Math.min(MAX_BYTES,
+                Runtime.getRuntime().maxMemory()/HEAP_SHARE));
+    }
+
+    public TileCache(long max) {
+        maxBytes = max;
+    }
+
+    /* the tile x painted at a zoom in a view, null if it is not
+       kept or was painted for another height */
+    public BufferedImage get(double pixelsPerNanoSecond, int content,
+            long x, int height) {
+        BufferedImage im = tiles.get(
+                probe.set(pixelsPerNanoSecond, content, x));
+        if (im == null || im.getHeight() != height)
+            return null;
+        return im;
+    }
+
+    /* keeps a tile, dropping the least recently used ones while
+       the tiles take too much room */
+    public void put(double pixelsPerNanoSecond, int content, long x,
+            BufferedImage im) {
+        BufferedImage old = tiles.put(
+                new Key(pixelsPerNanoSecond, content, x), im);
+        if (old != null)
+            bytes -= bytes(old);
+        bytes += bytes(im);
+
+        // the tile just kept stays even if it is too big on its own
+        Iterator<BufferedImage> it = tiles.values().iterator();
+        while (bytes > maxBytes && tiles.size() > 1) {
+            BufferedImage e = it.next();
+            bytes -= bytes(e);
+            it.remove();
+        }
+    }
+
+    /* drops the tiles of a content, at every zoom, that show time
+       t or later, in a picture whose window starts at time start,
+       zero pixels from its left */
+    public void dropFrom(int content, long zero, double start, double t) {
+        Iterator<Map.Entry<Key, BufferedImage>> it =
+                tiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, BufferedImage> e = it.next();
+            Key k = e.getKey();
+            if (k.content != content)
+                continue;
+            double x = zero+(t-start)*k.pixelsPerNanoSecond;
+            if ((k.x+1)*TILE_WIDTH > x) {
+                bytes -= bytes(e.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /* drops every tile */
+    public void clear() {
+        tiles.clear();
+        bytes = 0;
+    }
+
+    // room an image of ints takes
+    private static long bytes(BufferedImage im) {
+        return 4L*im.getWidth()*im.getHeight();
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public int size() {
+        return tiles.size();
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    // what a tile is kept by
+    static class Key {
+        double pixelsPerNanoSecond;
+        int content;
+        long x;
+
+        Key(double p, int c, long i) {
+            set(p, c, i);
+        }
+
+        /* makes this the key of another tile, only for a key that
+           is used to look tiles up and not kept */
+        Key set(double p, int c, long i) {
+            pixelsPerNanoSecond = p;
+            content = c;
+            x = i;
+            return this;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key)o;
+            return Double.compare(k.pixelsPerNanoSecond,
+                    pixelsPerNanoSecond) == 0 &&
+                    k.content == content && k.x == x;
+        }
+
+        public int hashCode() {
+            long b = Double.doubleToLongBits(pixelsPerNanoSecond);
+            return (int)(b ^ (b>>>32))*31*31 + content*31 +
+                    (int)(x ^ (x>>>32));
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/* TilePainter.java
+ *
+ * Created October 17, 2026
+ *
+ * This class paints the tiles of the timing diagram and the stats
+ * graph on a pool of threads and keeps them in the TileCache, so
+ * the paint of the drawing area only copies tiles that are done
+ * and the other cores share the painting.  The tiles missing next
+ * to each other are split into about a run per core, each run
+ * painted in one go.  A tile that is done is handed to the event
+ * thread, which keeps it and repaints where it goes.
+ *
+ * The tiles are painted from the blocks and stats of the VisTool
+ * while the event thread goes on.  The zoom, time window and
+ * layout they are painted at are copied into a PaintView when
+ * they are asked for, and a run is only kept if its view is still
+ * the one shown when it is done.  Anything else that changes what
+ * the tiles show calls invalidate(), which drops the tiles kept
+ * and the ones being painted.  The blocks, lanes and stats
+ * themselves must not change under a paint: that is done between
+ * beginChange() and endChange(), which wait for the paints that
+ * are running.  A paint that was dropped stops at its next
+ * isCancelled().  A paint that fails is reported to the VisTool,
+ * which shows the error and asks for the tiles again a while later.
+ *
+ * While the view is zoomed with the mouse wheel the runs for the
+ * zooms passed by stop at their next isCancelled() as well,
+ * without dropping the tiles kept.  That is only a hint from the
+ * pool: whether the tiles of a run are kept is decided on the
+ * event thread, so a tile is only ever kept by the zoom it was
+ * painted at.
+ *
+ * Everything but the painting itself runs on the event thread.
+ */
+
+// include needed packages
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import javax.swing.*;
+
+public class TilePainter {
+
+    // pool shared by every painter
+    final static ForkJoinPool pool =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private VisTool parent;     // paints the tiles
+    private TileCache tiles;    // tiles that are done
+    private HashSet<TileCache.Key> pending = // the tiles being
+            new HashSet<TileCache.Key>();    //   painted
+    private TileCache.Key probe = // looks pending tiles up
+            new TileCache.Key(0, 0, 0);
+    private volatile int generation; // counts the invalidate()s
+    private ReentrantReadWriteLock lock = // read while painting,
+            new ReentrantReadWriteLock(); //   written while changing
+
+    public TilePainter(VisTool p, TileCache t) {
+        parent = p;
+        tiles = t;
+    }
+
+    /* starts painting the tiles from up to to of a view that are
+       neither kept nor being painted */
+    public void request(VisTool.PaintView view, long from, long to,
+            int height, RenderingHints hints) {
+        double zoom = view.getZoom();
+        int content = view.getContent();
+        long x = from;
+        while (x < to) {
+            if (isKeptOrPending(zoom, content, x, height)) {
+                x++;
+                continue;
+            }
+            long end = x+1;
+            while (end < to && !isKeptOrPending(zoom, content, end, height))
+                end++;
+
+            // about one run per core
+            long n = (end-x+pool.getParallelism()-1)/pool.getParallelism();
+            for (long i=x; i < end; i+=n) {
+                PaintTask t = new PaintTask(view, i,
+                        Math.min(i+n, end), height, hints);
+                for (long k=t.from; k < t.to; k++)
+                    pending.add(new TileCache.Key(zoom, content, k));
+                pool.execute(t);
+            }
+            x = end;
+        }
+    }
+
+    private boolean isKeptOrPending(double zoom, int content, long x,
+            int height) {
+        return tiles.get(zoom, content, x, height) != null ||
+                pending.contains(probe.set(zoom, content, x));
+    }
+
+    /* drops the tiles kept and the ones being painted, what they
+       show has changed */
+    public void invalidate() {
+        cancel();
+        tiles.clear();
+    }
+
+    /* drops the tiles being painted, they are asked for again */
+    private void cancel() {
+        generation++;
+        pending.clear();
+    }
+
+    /* waits for the tiles being painted to stop, before the blocks
+       or lanes change */
+    public void beginChange() {
+        invalidate();
+        lock.writeLock().lock();
+    }
+
+    /* lets the tiles be painted again once the change is done */
+    public void endChange() {
+        invalidate();
+        lock.writeLock().unlock();
+    }
+
+    /* like beginChange(), for blocks added at the end of the time
+       the tiles show, but the tiles kept stay.  The caller drops
+       the ones the blocks show up in, see TileCache.dropFrom(). */
+    public void beginAppend() {
+        cancel();
+        lock.writeLock().lock();
+    }
+
+    public void endAppend() {
+        cancel();
+        lock.writeLock().unlock();
+    }
+
+    /* keeps the tiles of a run that is done, if they are of the
+       view shown, and shows them.  A run dropped for another view
+       is shown as well, so it is asked for again if the view went
+       back to it in the meantime. */
+    private void finished(PaintTask t, BufferedImage[] im) {
+        if (t.generation != generation)
+            return;
+        if (parent.getView() != t.view)
+            im = null;
+        for (long k=t.from; k < t.to; k++) {
+            pending.remove(probe.set(t.zoom, t.content, k));
+            if (im != null)
+                tiles.put(t.zoom, t.content, k, im[(int)(k-t.from)]);
+        }
+        if (t.failure != null)
+            parent.tilesFailed(t.zoom, t.content, t.from, t.to, t.failure);
+        else
+            parent.tilesPainted(t.zoom, t.content, t.from, t.to);
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    // are no tiles being painted?
+    public boolean isIdle() {
+        return pending.isEmpty();
+    }
+
+    public TileCache getTiles() {
+        return tiles;
+    }
+
+    // Paints a run of tiles on the pool
+    class PaintTask implements Runnable {
+        VisTool.PaintView view; // what the tiles are painted of
+        double zoom;            // what the tiles are kept by
+        int content;
+        long from;              // tiles from up to to
+        long to;
+        int height;
+        RenderingHints hints;   // of the drawing area
+        int generation;         // of the painter when it started
+        RuntimeException failure; // the paint failed, if set
+
+        PaintTask(VisTool.PaintView v, long f, long t, int h,
+                RenderingHints r) {
+            view = v;
+            zoom = v.getZoom();
+            content = v.getContent();
+            from = f;
+            to = t;
+            height = h;
+            hints = r;
+            generation = TilePainter.this.generation;
+        }
+
+        public void run() {
+            BufferedImage[] im = null;
+            lock.readLock().lock();
+            try {
+                if (!isCancelled())
+                    im = parent.paintTiles(this);
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            final BufferedImage[] done = im;
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    finished(PaintTask.this, done);
+                }
+            });
+        }
+
+        // are the tiles not wanted any more?  Only finished()
+        // decides, this lets a run for a view left stop early.  The
+        // view is only marked on the event thread, so this does not
+        // read any of the VisTool.
+        public boolean isCancelled() {
+            return generation != TilePainter.this.generation ||
+                    !view.isCurrent();
+        }
+
+        public VisTool.PaintView getView() {
+            return view;
+        }
+
+        public double getZoom() {
+            return zoom;
+        }
+
+        public int getContent() {
+            return content;
+        }
+
+        public long getFrom() {
+            return from;
+        }
+
+        public long getTo() {
+            return to;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public RenderingHints getHints() {
+            return hints;
+        }
+    }
+}
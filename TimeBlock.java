@@ -5,100 +5,98 @@
  *    4/26/05
  *
  * This class holds information about blocks
- * of time in the timing diagram.
+ * of time in the timing diagram.  The blocks are
+ * kept in a BlockStore; a TimeBlock is a read-only
+ * view of one of them that can be moved along the
+ * store, so a single TimeBlock serves a whole paint.
  */
 
 import java.awt.*;
-import java.util.*;
 
 public class TimeBlock extends Object {
-    private int ID;        // Transaction ID
-    private String str;    // Display text
-    private int busID;     // Which bus is it on?
-    private Color col;     // What color
-    private double startTime;  // block start time
-    private double endTime;    // block end time
-    private double transStartTime;
-    private double transEndTime;
-    private int eventID;
-    private int rank;
-    private int bank;
-    private int row;
-    private int column;
-    
-    public TimeBlock(int id, String s, int bID, Color color,
-            double tstart, double tend, int eID,
-            int r, int b, int w, int c,
-            double transStart, double transEnd) {
-        
-        
-        ID=id;
-        str=s;
-        busID = bID;
-        col=color;
-        startTime = tstart;
-        endTime = tend;
-        eventID = eID;
-        rank = r;
-        bank = b;
-        row = w;
-        column = c;
-        transStartTime = transStart;
-        transEndTime   = transEnd;
-    }
-    
+    private BlockSource store; // where the blocks are kept
+    private long index;        // which block is seen
+
+    public TimeBlock(BlockSource s) {
+        store = s;
+    }
+
+    public TimeBlock(BlockSource s, long i) {
+        store = s;
+        index = i;
+    }
+
+    /* moves the view to block i of the store */
+    public TimeBlock moveTo(long i) {
+        index = i;
+        return this;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
     public int getID() {
-        return ID;
+        return store.getID(index);
     }
-    
+
     public String getStr() {
-        return str;
+        return getKind().getLabel();
     }
-    
+
+    // the kind of block, which holds what all blocks of it share
+    public BlockKind getKind() {
+        return BlockKind.get(store.getKind(index));
+    }
+
     public int getBusID() {
-        return busID;
+        return store.getBusID(index);
     }
-    
+
     public Color getColor() {
-        return col;
+        return getKind().getColor();
     }
-    
+
     public double getStartTime() {
-        return startTime;
+        return store.getStartTime(index);
     }
-    
+
     public double getEndTime() {
-        return endTime;
+        return store.getEndTime(index);
     }
-    
+
     public double getTransactionStartTime() {
-        return transStartTime;
+        return store.getTransactionStartTime(index);
     }
-    
+
     public double getTransactionEndTime() {
-        return transEndTime;
+        return store.getTransactionEndTime(index);
     }
-    
+
     public int getType() {
-        return eventID;
+        return store.getType(index);
     }
-    
+
     public int getRank() {
-        return rank;
+        return store.getRank(index);
     }
-    
+
     public int getBank() {
-        return bank;
+        return store.getBank(index);
     }
-    
+
     public int getRow() {
-        return row;
+        return store.getRow(index);
     }
-    
+
     public int getCol() {
-        return column;
+        return store.getCol(index);
     }
-    
+
+    public int getChannel() {
+        return store.getChannel(index);
+    }
+
     public boolean isCommand() {
         return (getType()!=0);
     }
@@ -53,8 +53,9 @@ public class TimeDialog extends JPanel {
                 if (endTime != parent.getEndTime()) {
                     parent.setEndTime(endTime);
                 }
-                // revalidate the data and close the frame
-                parent.recreateTimeBlocks();
+                // load the new window if only a window was loaded,
+                // show it and close the frame
+                parent.reloadWindow();
                 parent.repaintDrawingArea();
                 frame.dispose();
             }
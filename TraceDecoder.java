@@ -0,0 +1,148 @@
+/* TraceDecoder.java
+ *
+ * Created October 17, 2026
+ *
+ * This class holds what every trace decoder has in common:
+ * the CommandSink the commands go to, the time window, the
+ * counters, the progress seen by other threads and the error
+ * limit.  TraceParser decodes text traces and BinaryTraceReader
+ * decodes traces written by BinaryTraceWriter.
+ */
+
+// include needed packages
+import java.io.*;
+import java.nio.channels.*;
+
+public abstract class TraceDecoder {
+
+    // largest region of the file that is mapped at once
+    final static long MAP_WINDOW = 1L<<28;
+
+    // lines between updates of the progress counters
+    final static int PROGRESS_LINES = 4096;
+
+    protected CommandSink sink; // receives the decoded commands
+    protected double startTime; // commands outside of this window
+    protected double endTime;   //   are skipped
+    protected int maxErrors;    // give up after this many errors (-1: never)
+
+    protected long lineNum;     // number of the current line (1 based)
+    protected long lineOffset;  // file offset of the current line or record
+    protected long numCommands; // commands handed to the sink
+    protected long numSkipped;  // commands outside of the window
+    protected int errors;       // lines that could not be decoded
+    protected boolean aborted;  // too many errors were found
+
+    // progress as seen by other threads, updated every PROGRESS_LINES
+    protected volatile long bytesDone;
+    protected volatile long commandsDone;
+    protected volatile boolean cancelled;
+
+    protected TraceDecoder(CommandSink s, double start, double end,
+            int maxErr) {
+        sink = s;
+        startTime = start;
+        endTime = end;
+        maxErrors = maxErr;
+    }
+
+    /* decodes the commands between two byte offsets of the file.
+       start must be the beginning of a line or record. */
+    public abstract void parseRange(FileChannel ch, long start, long end)
+            throws IOException;
+
+    /* maps the file and decodes every command in it */
+    public void parseFile(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel ch = raf.getChannel();
+            parseRange(ch, firstCommand(ch), ch.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /* offset of the first command in the file */
+    public long firstCommand(FileChannel ch) throws IOException {
+        return 0;
+    }
+
+    /* counts an error and hands it on to the sink, with its
+       message and line only while samples are still wanted */
+    protected int error(int kind, String message) {
+        if (sampling())
+            sink.parseError(lineNum, kind, message, lineText());
+        else
+            sink.parseError(lineNum, kind, null, null);
+        errors++;
+        if (maxErrors >= 0 && errors > maxErrors)
+            aborted = true;
+        return TraceParser.PARSE_ERROR;
+    }
+
+    /* is the next error one of the samples of the ErrorReport? */
+    protected boolean sampling() {
+        return errors < ErrorReport.MAX_SAMPLES;
+    }
+
+    /* the text of the current line, for error samples */
+    protected String lineText() {
+        return null;
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public long getNumCommands() {
+        return numCommands;
+    }
+
+    public long getNumSkipped() {
+        return numSkipped;
+    }
+
+    public long getNumLines() {
+        return lineNum;
+    }
+
+    // numbers the lines after the first n, for decoding that
+    // starts part way into the file
+    public void setFirstLine(long n) {
+        lineNum = n;
+    }
+
+    // where the command handed to the sink starts in the file
+    public long getLineOffset() {
+        return lineOffset;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    // bytes decoded so far, safe to call from any thread
+    public long getBytesDone() {
+        return bytesDone;
+    }
+
+    // commands decoded so far, safe to call from any thread
+    public long getCommandsDone() {
+        return commandsDone;
+    }
+
+    // stops the decoding at the next progress update
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,128 @@
+/* TraceFollower.java
+ *
+ * Created October 17, 2026
+ *
+ * This class follows a trace file that is still being written
+ * by the simulator.  The file is polled on a background thread
+ * and only the complete lines appended since the last poll are
+ * decoded.  Their TimeBlocks are handed to VisTool, which adds
+ * them to the timing diagram and the stats.
+ */
+
+// include needed packages
+import javax.swing.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.io.*;
+import java.nio.channels.*;
+
+public class TraceFollower extends SwingWorker<Object, BlockStore>
+        implements CommandSink {
+
+    // time between looks at the file (ms)
+    final static int POLL_DELAY = 200;
+    // most bytes decoded before the blocks are handed over
+    final static long MAX_STEP = 1L<<26;
+
+    private VisTool parent;
+    private File file;
+    private long offset;         // bytes of the file already decoded
+    private TraceParser parser;  // keeps the line count between polls
+    private BlockStore blocks;   // blocks decoded in this step
+    private boolean commandsOnly; // keep only the command blocks
+    private BlockTiming timing;   // DRAM timing when it started
+
+    private volatile boolean truncated; // the file got shorter
+    private ErrorReport report = new ErrorReport(); // lines not decoded
+
+    public TraceFollower(VisTool p, File f, long start, long firstLine,
+            double startTime) {
+        parent = p;
+        file = f;
+        offset = start;
+        parser = new TraceParser(this, startTime,
+                Double.POSITIVE_INFINITY, -1);
+        parser.setFirstLine(firstLine);
+        commandsOnly = p.isDeriveBlocks();
+        timing = p.getBlockTiming();
+    }
+
+    protected Object doInBackground() throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel ch = raf.getChannel();
+            while (!isCancelled()) {
+                long size = ch.size();
+                if (size < offset) {
+                    // the simulator started over
+                    truncated = true;
+                    return null;
+                }
+
+                // decode the complete lines added since the last poll
+                long end = ChunkedTraceLoader.lastLineEnd(ch, offset,
+                        Math.min(size, offset+MAX_STEP));
+                if (end > offset) {
+                    blocks = new HeapBlockStore();
+                    blocks.setCommandsOnly(commandsOnly);
+                    blocks.setTiming(timing);
+                    parser.parseRange(ch, offset, end);
+                    blocks = blocks.sorted();
+                    offset = end;
+                    if (!blocks.isEmpty())
+                        publish(blocks);
+                }
+
+                // wait unless there is more to catch up on
+                if (size-offset < MAX_STEP)
+                    Thread.sleep(POLL_DELAY);
+            }
+        } finally {
+            raf.close();
+        }
+        return null;
+    }
+
+    protected void process(List<BlockStore> steps) {
+        if (isCancelled())
+            return;
+        for (int i=0;i<steps.size();i++)
+            parent.appendFollowedBlocks(steps.get(i));
+    }
+
+    protected void done() {
+        String message = null;
+        try {
+            get();
+        } catch (CancellationException ce) {
+            // stopped by the user
+        } catch (ExecutionException ee) {
+            message = "Could not read "+file.getName()+".";
+        } catch (InterruptedException ie) {
+            // not interrupted
+        }
+        if (truncated)
+            message = file.getName()+" got shorter, stopped following it.";
+        parent.followStopped(this, message, report);
+    }
+
+    /* stops following the file */
+    public void stop() {
+        cancel(true);
+    }
+
+    public void addCommand(double time, int type, int transID,
+            int rank, int bank, int row, int col, int channel) {
+        blocks.addCommand(time,type,transID,rank,bank,row,col);
+    }
+
+    public void parseError(long lineNum, int kind, String message,
+            String text) {
+        report.add(lineNum, kind, message, text);
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
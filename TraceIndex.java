@@ -0,0 +1,371 @@
+/* TraceIndex.java
+ *
+ * Created October 17, 2026
+ *
+ * This class is a sparse index of a trace file.  Every STRIDE
+ * commands it records the byte offset and line number of the
+ * command together with the earliest and latest time in the
+ * block of commands that follows.  With it a load restricted to
+ * a time window only reads the part of the file that can hold
+ * commands in the window, even if the trace is not sorted.
+ *
+ * The index is built once with a full pass over the file and
+ * saved next to the trace (name.vti).  It is rebuilt when the
+ * size or modification time of the trace changes.
+ *
+ * Index file (version 1):
+ *     int    magic number "VTIX"
+ *     int    format version
+ *     long   size of the trace
+ *     long   modification time of the trace
+ *     int    number of blocks n
+ *     n+1 *  long offset, long line (0 based)
+ *     n   *  double earliest time, double latest time
+ */
+
+// include needed packages
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class TraceIndex {
+
+    final static int MAGIC = 0x56544958;   // "VTIX"
+    final static int VERSION = 1;
+    final static String EXTENSION = ".vti";
+
+    // commands per block of the index
+    final static int STRIDE = 4096;
+
+    // traces smaller than this are cheaper to read whole
+    final static long MIN_TRACE_SIZE = 1L<<24;
+
+    private File trace;
+    private long traceSize;
+    private long traceModified;
+
+    // block i holds the commands from offsets[i] up to offsets[i+1].
+    // The last entry of offsets and lines is the end of the data.
+    private long[] offsets;
+    private long[] lines;
+    private double[] minTimes;
+    private double[] maxTimes;
+
+    // latest time before block i and earliest time from block i on
+    private double[] maxBefore;
+    private double[] minFrom;
+
+    private IndexTask[] tasks;  // the chunks while being built
+    private volatile boolean cancelled;
+
+    private TraceIndex(File f) {
+        trace = f;
+        traceSize = f.length();
+        traceModified = f.lastModified();
+    }
+
+    /* returns the index of the trace, reading it from its index
+       file if that is up to date and building it otherwise.
+       Returns null if the build was cancelled. */
+    public static TraceIndex forFile(File f, FileChannel ch,
+            long start, long end, boolean binary, ChunkedTraceLoader loader)
+            throws IOException {
+        TraceIndex index = new TraceIndex(f);
+        if (index.read())
+            return index;
+
+        loader.setIndexBuild(index);
+        try {
+            index.build(ch, start, end, binary);
+        } finally {
+            loader.setIndexBuild(null);
+        }
+        if (index.cancelled)
+            return null;
+
+        try {
+            index.write();
+        } catch (IOException ioe) {
+            // the directory may be read only, use the index anyway
+        }
+        return index;
+    }
+
+    /* the index file that goes with a trace */
+    public static File indexFile(File f) {
+        return new File(f.getPath()+EXTENSION);
+    }
+
+    /* decodes the whole trace in chunks and records the blocks */
+    private void build(FileChannel ch, long start, long end, boolean binary)
+            throws IOException {
+        int n = ChunkedTraceLoader.numChunks(end-start);
+        long[] bounds = binary ?
+                BinaryTrace.splitRecords(start, end, n) :
+                ChunkedTraceLoader.splitAtNewlines(ch, start, end, n);
+
+        tasks = new IndexTask[n];
+        for (int i=0;i<n;i++) {
+            tasks[i] = new IndexTask(ch, bounds[i], bounds[i+1], binary);
+            ChunkedTraceLoader.pool.execute(tasks[i]);
+        }
+
+        // join the chunks in order, numbering their lines from the
+        // start of the file
+        Vector<Long> o = new Vector<Long>();
+        Vector<Long> l = new Vector<Long>();
+        Vector<Double> min = new Vector<Double>();
+        Vector<Double> max = new Vector<Double>();
+        long firstLine = 0;
+        for (int i=0;i<n;i++) {
+            IndexTask t = tasks[i];
+            t.join();
+            if (t.failure != null)
+                throw t.failure;
+            for (int j=0;j<t.offsets.size();j++) {
+                o.addElement(t.offsets.elementAt(j));
+                l.addElement(Long.valueOf(firstLine+
+                        t.lines.elementAt(j).longValue()));
+                min.addElement(t.minTimes.elementAt(j));
+                max.addElement(t.maxTimes.elementAt(j));
+            }
+            firstLine = firstLine+t.decoder.getNumLines();
+        }
+        tasks = null;
+
+        int blocks = o.size();
+        offsets = new long[blocks+1];
+        lines = new long[blocks+1];
+        minTimes = new double[blocks];
+        maxTimes = new double[blocks];
+        for (int i=0;i<blocks;i++) {
+            offsets[i] = o.elementAt(i).longValue();
+            lines[i] = l.elementAt(i).longValue();
+            minTimes[i] = min.elementAt(i).doubleValue();
+            maxTimes[i] = max.elementAt(i).doubleValue();
+        }
+        offsets[blocks] = end;
+        lines[blocks] = firstLine;
+        summarize();
+    }
+
+    /* works out the latest time before and the earliest time
+       after every block boundary */
+    private void summarize() {
+        int n = minTimes.length;
+        maxBefore = new double[n+1];
+        minFrom = new double[n+1];
+
+        maxBefore[0] = Double.NEGATIVE_INFINITY;
+        for (int i=0;i<n;i++)
+            maxBefore[i+1] = Math.max(maxBefore[i], maxTimes[i]);
+
+        minFrom[n] = Double.POSITIVE_INFINITY;
+        for (int i=n-1;i>=0;i--)
+            minFrom[i] = Math.min(minFrom[i+1], minTimes[i]);
+    }
+
+    /* the first block boundary with no command at or after start
+       before it.  maxBefore only grows, so a binary search works. */
+    public int firstBlock(double start) {
+        int lo = 0;
+        int hi = maxBefore.length-1;
+        while (lo < hi) {
+            int mid = (lo+hi+1)/2;
+            if (maxBefore[mid] < start)
+                lo = mid;
+            else
+                hi = mid-1;
+        }
+        return lo;
+    }
+
+    /* the first block boundary with no command at or before end
+       from it on.  minFrom only grows as well. */
+    public int lastBlock(double end) {
+        int lo = 0;
+        int hi = minFrom.length-1;
+        while (lo < hi) {
+            int mid = (lo+hi)/2;
+            if (minFrom[mid] > end)
+                hi = mid;
+            else
+                lo = mid+1;
+        }
+        return lo;
+    }
+
+    /* reads the index file, returns false if it is missing,
+       damaged or older than the trace */
+    private boolean read() {
+        File f = indexFile(trace);
+        if (!f.exists())
+            return false;
+        try {
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(f)));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION ||
+                        in.readLong() != traceSize ||
+                        in.readLong() != traceModified)
+                    return false;
+
+                int n = in.readInt();
+                offsets = new long[n+1];
+                lines = new long[n+1];
+                minTimes = new double[n];
+                maxTimes = new double[n];
+                for (int i=0;i<=n;i++) {
+                    offsets[i] = in.readLong();
+                    lines[i] = in.readLong();
+                }
+                for (int i=0;i<n;i++) {
+                    minTimes[i] = in.readDouble();
+                    maxTimes[i] = in.readDouble();
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException ioe) {
+            return false;
+        }
+        summarize();
+        return true;
+    }
+
+    /* saves the index next to the trace */
+    private void write() throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(
+                new FileOutputStream(indexFile(trace))));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(traceSize);
+            out.writeLong(traceModified);
+            out.writeInt(minTimes.length);
+            for (int i=0;i<offsets.length;i++) {
+                out.writeLong(offsets[i]);
+                out.writeLong(lines[i]);
+            }
+            for (int i=0;i<minTimes.length;i++) {
+                out.writeDouble(minTimes[i]);
+                out.writeDouble(maxTimes[i]);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /* stops the build at the next progress update */
+    public void cancel() {
+        cancelled = true;
+        IndexTask[] t = tasks;
+        for (int i=0;t!=null && i<t.length;i++)
+            t[i].decoder.cancel();
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public int getNumBlocks() {
+        return minTimes.length;
+    }
+
+    // offset of block i, the end of the data for i == getNumBlocks()
+    public long getOffset(int i) {
+        return offsets[i];
+    }
+
+    // lines before block i
+    public long getLine(int i) {
+        return lines[i];
+    }
+
+    // bytes decoded so far while building
+    public long getBytesDone() {
+        long n = 0;
+        IndexTask[] t = tasks;
+        for (int i=0;t!=null && i<t.length;i++)
+            n = n+t[i].decoder.getBytesDone();
+        return n;
+    }
+
+    // Decodes one chunk of the trace and records its blocks
+    class IndexTask extends RecursiveAction implements CommandSink {
+        private static final long serialVersionUID = 1L;
+
+        FileChannel ch;
+        long from;
+        long to;
+        TraceDecoder decoder;
+        long commands;        // commands seen so far
+        Vector<Long> offsets = new Vector<Long>();
+        Vector<Long> lines = new Vector<Long>(); // lines before the block
+        Vector<Double> minTimes = new Vector<Double>();
+        Vector<Double> maxTimes = new Vector<Double>();
+        double minTime;       // times of the current block
+        double maxTime;
+        IOException failure;
+
+        IndexTask(FileChannel c, long f, long t, boolean binary) {
+            ch = c;
+            from = f;
+            to = t;
+            double start = Double.NEGATIVE_INFINITY;
+            double end = Double.POSITIVE_INFINITY;
+            decoder = binary ?
+                    new BinaryTraceReader(this, start, end, -1) :
+                    new TraceParser(this, start, end, -1);
+            if (cancelled)
+                decoder.cancel();
+        }
+
+        protected void compute() {
+            try {
+                decoder.parseRange(ch, from, to);
+            } catch (IOException ioe) {
+                failure = ioe;
+            }
+            closeBlock();
+        }
+
+        public void addCommand(double time, int type, int transID,
+                int rank, int bank, int row, int col, int chan) {
+            if (commands % STRIDE == 0) {
+                closeBlock();
+                // the first block takes in anything before it
+                if (commands == 0) {
+                    offsets.addElement(Long.valueOf(from));
+                    lines.addElement(Long.valueOf(0));
+                } else {
+                    offsets.addElement(Long.valueOf(decoder.getLineOffset()));
+                    lines.addElement(Long.valueOf(decoder.getNumLines()-1));
+                }
+                minTime = time;
+                maxTime = time;
+            }
+            if (time < minTime)
+                minTime = time;
+            if (time > maxTime)
+                maxTime = time;
+            commands++;
+        }
+
+        private void closeBlock() {
+            if (commands > 0 && minTimes.size() < offsets.size()) {
+                minTimes.addElement(Double.valueOf(minTime));
+                maxTimes.addElement(Double.valueOf(maxTime));
+            }
+        }
+
+        public void parseError(long lineNum, int kind, String message,
+                String text) {
+            // reported when the trace is loaded
+        }
+    }
+}
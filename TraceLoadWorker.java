@@ -0,0 +1,258 @@
+/* TraceLoadWorker.java
+ *
+ * Created October 17, 2026
+ *
+ * This class loads a trace file with a ChunkedTraceLoader on
+ * a background thread so the window stays responsive.  As the
+ * chunks finish, the TimeBlocks no later chunk can go before are
+ * handed to VisTool right away, so the start of the trace can be
+ * viewed while the rest is still loading.
+ * Several files, one per memory channel, are loaded together.
+ *
+ * The blocks handed over are indexed by transaction (see
+ * TransactionIndex) and into the lanes of the diagram (see
+ * LaneIndex) here, before they are queued, so no index is built on
+ * the event thread.  The first chunk starts the store of the
+ * diagram, a SegmentedBlockStore, and the event thread adds the
+ * others to it as segments and publishes their lanes, which takes
+ * no longer the larger they are.  VisTool takes the transaction
+ * index when the load finishes if the blocks did not change on the
+ * way.
+ *
+ * SwingWorker may call process() after done(), so the blocks are
+ * queued here instead: process() hands over what is queued, and
+ * done() hands over the rest before the load is finished, so
+ * nothing is added after finishInputFile().
+ */
+
+// include needed packages
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.io.*;
+
+public class TraceLoadWorker extends SwingWorker<Object, TraceLoadWorker.Chunk> {
+
+    // how often the progress dialog is updated (ms)
+    final static int PROGRESS_DELAY = 250;
+
+    private VisTool parent;
+    private File[] files;           // one per channel
+    private ChunkedTraceLoader loader;
+
+    private long publishedCommands; // commands handed to VisTool
+    private boolean allPublished;   // every block was handed over
+    private boolean follow;         // keep following the file after
+    private Vector<Chunk> ready =   // published, not handed over
+            new Vector<Chunk>();    //   to VisTool yet
+    private SegmentedBlockStore store; // the blocks handed over
+    private long indexed;           // blocks of it indexed
+    private LaneIndex lanes;        // lanes of those blocks
+    private TransactionIndex index; // commands of the blocks handed
+                                    //   over, by transaction ID
+    private BlockStore merged;      // the blocks, if the chunks had
+                                    //   to be merged
+    private LaneIndex mergedLanes;  // and their lanes
+
+    private JFrame frame;           // holds the progress dialog
+    private LoadProgressDialog dialog;
+    private javax.swing.Timer timer;
+    private long startNanos;
+
+    public TraceLoadWorker(VisTool p, File f,
+            double start, double end, int maxErrors) {
+        this(p, new File[] {f}, start, end, maxErrors);
+    }
+
+    public TraceLoadWorker(VisTool p, File[] f,
+            double start, double end, int maxErrors) {
+        parent = p;
+        files = f;
+        loader = new ChunkedTraceLoader(p, f, start, end, maxErrors);
+    }
+
+    /* opens the progress dialog and starts the load */
+    public void start() {
+        frame = new JFrame("Loading");
+        frame.getContentPane().setLayout(new GridLayout(1,1));
+        frame.setLocation(150,150);
+
+        dialog = new LoadProgressDialog(frame, this);
+        frame.getContentPane().add(dialog);
+
+        // closing the window cancels the load
+        frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            public void windowClosing(WindowEvent e) {
+                cancelLoad();
+            }
+        });
+        frame.pack();
+        frame.setVisible(true);
+
+        // poll the loader for progress
+        startNanos = System.nanoTime();
+        timer = new javax.swing.Timer(PROGRESS_DELAY, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                updateProgress();
+            }
+        });
+        timer.start();
+
+        execute();
+    }
+
+    /* stops the load, keeping the chunks that were already shown */
+    public void cancelLoad() {
+        loader.cancel();
+    }
+
+    protected Object doInBackground() throws Exception {
+        loader.start();
+        try {
+            int n = loader.getNumChunks();
+            for (int i=0;i<n;i++) {
+                loader.joinChunk(i);
+
+                // hand over the blocks that are safe to show
+                if (!loader.isCancelled()) {
+                    BlockStore blocks = loader.takePublishable();
+                    if (blocks != null && !blocks.isEmpty())
+                        publishChunk(blocks);
+                }
+            }
+            publishedCommands = loader.getPublishedCommands();
+            allPublished = !loader.isCancelled() &&
+                    loader.isAllPublished();
+        } finally {
+            loader.finish();
+        }
+
+        // the chunks overlap in time and need to be merged, and
+        // indexed again, here rather than on the event thread.  A
+        // mapped trace is added to through a store of its own, and
+        // shown right away: VisTool indexes it afterwards, so opening
+        // it takes no longer the larger it is.
+        if (!allPublished && !loader.isCancelled() && !loader.isAborted()) {
+            if (index != null)
+                index.close();
+            index = null;
+            merged = loader.getBlocks().writable();
+            if (!loader.isMapped()) {
+                mergedLanes = new LaneIndex(parent, merged);
+                index = new TransactionIndex(merged);
+            }
+        }
+        return null;
+    }
+
+    /* indexes the blocks as the next ones of the store and queues
+       them.  The first blocks start the store. */
+    private void publishChunk(BlockStore blocks) {
+        if (store == null) {
+            store = new SegmentedBlockStore(blocks);
+            lanes = new LaneIndex(parent, store);
+            index = new TransactionIndex(store);
+        } else {
+            lanes.add(blocks, indexed);
+            index.add(blocks);
+        }
+        indexed = indexed+blocks.size();
+
+        Chunk c = new Chunk();
+        c.blocks = blocks;
+        c.laneSizes = lanes.mark();
+        ready.addElement(c);
+        publish(c);
+    }
+
+    /* the chunks are taken from ready, they may have been handed
+       over by done() already */
+    protected void process(List<Chunk> chunks) {
+        if (handOver())
+            parent.repaintDrawingArea();
+    }
+
+    /* hands the queued blocks to VisTool.  Returns false if there
+       were none. */
+    private boolean handOver() {
+        if (ready.isEmpty())
+            return false;
+        while (!ready.isEmpty()) {
+            Chunk c = ready.remove(0);
+            parent.appendTimeBlocks(store, c.blocks, lanes, c.laneSizes);
+        }
+        return true;
+    }
+
+    protected void done() {
+        timer.stop();
+        frame.dispose();
+        handOver();
+
+        try {
+            get();
+        } catch (ExecutionException ee) {
+            parent.displayErrorMessage(" ", "File Input Error.");
+            parent.finishInputFile(null, false, 0);
+            loader.close();
+            return;
+        } catch (InterruptedException ie) {
+            return;
+        }
+        parent.finishInputFile(loader, allPublished, publishedCommands);
+        loader.close();
+    }
+
+    private void updateProgress() {
+        double seconds = (System.nanoTime()-startNanos)/1e9;
+        dialog.setIndexing(loader.isIndexing());
+        dialog.setProgress(loader.getBytesDone(), loader.getProgressSize(),
+                loader.getCommandsDone(), seconds);
+    }
+
+    // the (first) file being loaded
+    public File getFile() {
+        return files[0];
+    }
+
+    public File[] getFiles() {
+        return files;
+    }
+
+    // the index of the blocks handed over, once the load is done
+    public TransactionIndex getTransactionIndex() {
+        return index;
+    }
+
+    // the merged blocks, once the load is done, null if every
+    // block was handed over
+    public BlockStore getMergedBlocks() {
+        return merged;
+    }
+
+    // null if the merged blocks still need to be indexed
+    public LaneIndex getMergedLaneIndex() {
+        return mergedLanes;
+    }
+
+    /* loads only complete lines so the file can be followed
+       from where the load stopped */
+    public void setFollow(boolean b) {
+        follow = b;
+        loader.setCompleteLinesOnly(b);
+    }
+
+    public boolean isFollow() {
+        return follow;
+    }
+
+    // Blocks to hand over, and the lanes once they were indexed
+    static class Chunk {
+        BlockStore blocks;
+        long[] laneSizes;
+    }
+}
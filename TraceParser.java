@@ -0,0 +1,350 @@
+/* TraceParser.java
+ *
+ * Created October 17, 2026
+ *
+ * This class decodes a DRAM command trace (see DDR400.txt)
+ * directly from a memory mapped file.  Every line has the form
+ *
+ *     time COMMAND transID rank bank row col
+ *
+ * The fields are decoded straight from the bytes of the file so
+ * no String or reader object is created for a line unless it
+ * holds an error.  Each decoded command is handed to a CommandSink.
+ * The counters and progress are kept by TraceDecoder.
+ */
+
+// include needed packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+public class TraceParser extends TraceDecoder {
+
+    // outcome of parsing a single line
+    final static int PARSE_ERROR  = 0;
+    final static int PARSE_OK     = 1;
+    final static int OUT_OF_RANGE = 2;
+    final static int BLANK_LINE   = 3;
+
+    // command keywords as they appear in the trace
+    private final static byte[] ROWACT_KEY = ascii("ROWACT");
+    private final static byte[] READ_KEY = ascii("READ");
+    private final static byte[] WRITE_KEY = ascii("WRITE");
+    private final static byte[] PRECHARGE_KEY = ascii("PRECHARGE");
+    private final static byte[] REFRESH_KEY = ascii("REFRESH");
+    private final static byte[] BANKCONFLICT_KEY = ascii("BANKCONFLICT");
+    private final static byte[] TFAWCONFLICT_KEY = ascii("TFAWCONFLICT");
+
+    // powers of ten that are exact as doubles
+    private final static double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i=1;i<POW10.length;i++)
+            POW10[i] = POW10[i-1]*10.0;
+    }
+
+    private long bufferBase;    // bytes parsed before the current buffer
+    private long bufferOffset;  // file offset of the current buffer
+
+    // decoding state for the current line
+    private ByteBuffer lineBuf; // buffer holding the line
+    private int lineStart;      // bytes of the line in lineBuf
+    private int lineEnd;
+    private int pos;            // position in the buffer
+    private int wordStart;      // start of the command keyword
+    private int intValue;       // last integer decoded
+    private double time;        // time of the current command
+
+    public TraceParser(CommandSink s, double start, double end, int maxErr) {
+        super(s, start, end, maxErr);
+    }
+
+    /* parses the lines between two byte offsets of the file.
+       start must be the first byte of a line. */
+    public void parseRange(FileChannel ch, long start, long end)
+            throws IOException {
+        long p = start;
+        while (p < end && !aborted && !cancelled) {
+            long len = Math.min(MAP_WINDOW, end-p);
+            MappedByteBuffer buf =
+                    ch.map(FileChannel.MapMode.READ_ONLY, p, len);
+            int limit = (int)len;
+
+            // stop at the last complete line unless this is the end
+            if (p+len < end) {
+                int last = lastNewline(buf, limit);
+                if (last >= 0)
+                    limit = last+1;
+            }
+            bufferBase = p-start;
+            bufferOffset = p;
+            parseBuffer(buf, 0, limit);
+            p = p+limit;
+        }
+        if (!cancelled)
+            bytesDone = p-start;
+        commandsDone = numCommands;
+    }
+
+    /* parses the lines of buf between from and to */
+    public void parseBuffer(ByteBuffer buf, int from, int to) {
+        int p = from;
+        while (p < to && !aborted) {
+            // find the end of the line
+            int eol = p;
+            while (eol < to && buf.get(eol) != '\n')
+                eol++;
+
+            lineNum++;
+            lineOffset = bufferOffset+p;
+            switch (parseLine(buf, p, eol)) {
+                case PARSE_OK:
+                    numCommands++;
+                    break;
+                case OUT_OF_RANGE:
+                    numSkipped++;
+                    break;
+                default:
+                    break;
+            }
+            p = eol+1;
+
+            // publish progress and look for a cancel now and then
+            if (lineNum % PROGRESS_LINES == 0) {
+                bytesDone = bufferBase+p-from;
+                commandsDone = numCommands;
+                if (cancelled)
+                    return;
+            }
+        }
+    }
+
+    /* decodes one line and passes the command on to the sink */
+    int parseLine(ByteBuffer buf, int p, int end) {
+        // ignore the carriage return of DOS line endings
+        if (end > p && buf.get(end-1) == '\r')
+            end--;
+
+        lineBuf = buf;
+        lineStart = p;
+        lineEnd = end;
+        pos = p;
+        skipSpaces(buf, end);
+        if (pos >= end)
+            return BLANK_LINE;
+
+        // time
+        if (!parseTime(buf, end))
+            return formatError();
+
+        // See if the command is in the time window of interest
+        // if not, ignore.
+        if (time < startTime || time > endTime)
+            return OUT_OF_RANGE;
+
+        // command
+        if (!skipSpaces(buf, end))
+            return formatError();
+        int type = parseCommand(buf, end);
+        if (type == VisTool.NONE) {
+            if (pos == wordStart)
+                return formatError();
+            String message = null;
+            if (sampling()) {
+                message = "Command '"+ascii(buf, wordStart, pos)+
+                        "' not supported";
+            }
+            return error(ErrorReport.UNSUPPORTED_COMMAND, message);
+        }
+
+        // transaction id, rank, bank, row
+        if (!skipSpaces(buf, end) || !parseInt(buf, end))
+            return formatError();
+        int transID = intValue;
+        if (!skipSpaces(buf, end) || !parseInt(buf, end))
+            return formatError();
+        int rank = intValue;
+        if (!skipSpaces(buf, end) || !parseInt(buf, end))
+            return formatError();
+        int bank = intValue;
+        if (!skipSpaces(buf, end) || !parseInt(buf, end))
+            return formatError();
+        int row = intValue;
+
+        // column, anything following it is ignored
+        if (!skipSpaces(buf, end) || !parseInt(buf, end))
+            return formatError();
+        int col = intValue;
+
+        sink.addCommand(time, type, transID, rank, bank, row, col, 0);
+        return PARSE_OK;
+    }
+
+    /* matches the keyword at pos with a command type */
+    private int parseCommand(ByteBuffer buf, int end) {
+        wordStart = pos;
+        while (pos < end && !isSpace(buf.get(pos)))
+            pos++;
+        int len = pos-wordStart;
+
+        // the length (and first letter) picks the only candidate
+        byte[] key;
+        int type;
+        switch (len) {
+            case 4:
+                key = READ_KEY; type = VisTool.READ; break;
+            case 5:
+                key = WRITE_KEY; type = VisTool.WRITE; break;
+            case 6:
+                key = ROWACT_KEY; type = VisTool.ROWACT; break;
+            case 7:
+                key = REFRESH_KEY; type = VisTool.REFRESH; break;
+            case 9:
+                key = PRECHARGE_KEY; type = VisTool.PRECHARGE; break;
+            case 12:
+                if (buf.get(wordStart) == 'B') {
+                    key = BANKCONFLICT_KEY; type = VisTool.BANKCONFLICT;
+                } else {
+                    key = TFAWCONFLICT_KEY; type = VisTool.TFAWCONFLICT;
+                }
+                break;
+            default:
+                return VisTool.NONE;
+        }
+
+        for (int i=0;i<len;i++) {
+            if (buf.get(wordStart+i) != key[i])
+                return VisTool.NONE;
+        }
+        return type;
+    }
+
+    /* decodes the time at pos.  Plain decimals are converted
+       directly, anything else falls back to Double.parseDouble */
+    private boolean parseTime(ByteBuffer buf, int end) {
+        int start = pos;
+        boolean neg = false;
+        if (buf.get(pos) == '-') {
+            neg = true;
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = 0;
+        boolean point = false;
+        while (pos < end) {
+            byte b = buf.get(pos);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa*10+(b-'0');
+                digits++;
+                if (point)
+                    fraction++;
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+
+        // too many digits or an exponent, let the library handle it
+        if (digits == 0 || digits > 15 || fraction >= POW10.length ||
+                !atFieldEnd(buf, end)) {
+            pos = start;
+            return parseTimeSlow(buf, end);
+        }
+
+        double v = (double)mantissa;
+        if (fraction > 0)
+            v = v/POW10[fraction];
+        time = neg ? -v : v;
+        return true;
+    }
+
+    /* decodes the time with Double.parseDouble */
+    private boolean parseTimeSlow(ByteBuffer buf, int end) {
+        int start = pos;
+        while (pos < end && !isSpace(buf.get(pos)))
+            pos++;
+        try {
+            time = Double.parseDouble(ascii(buf, start, pos));
+        } catch (NumberFormatException nfe) {
+            return false;
+        }
+        return true;
+    }
+
+    /* decodes a decimal integer at pos into intValue */
+    private boolean parseInt(ByteBuffer buf, int end) {
+        boolean neg = false;
+        if (pos < end && buf.get(pos) == '-') {
+            neg = true;
+            pos++;
+        }
+
+        int start = pos;
+        long v = 0;
+        while (pos < end) {
+            byte b = buf.get(pos);
+            if (b < '0' || b > '9')
+                break;
+            v = v*10+(b-'0');
+            if (v > Integer.MAX_VALUE)
+                return false;
+            pos++;
+        }
+        if (pos == start || !atFieldEnd(buf, end))
+            return false;
+
+        intValue = neg ? -(int)v : (int)v;
+        return true;
+    }
+
+    /* moves pos past white space, returns false if none was found */
+    private boolean skipSpaces(ByteBuffer buf, int end) {
+        int start = pos;
+        while (pos < end && isSpace(buf.get(pos)))
+            pos++;
+        return pos > start;
+    }
+
+    private boolean atFieldEnd(ByteBuffer buf, int end) {
+        return pos >= end || isSpace(buf.get(pos));
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private int formatError() {
+        return error(ErrorReport.MALFORMED_LINE, "Error parsing input");
+    }
+
+    protected String lineText() {
+        return ascii(lineBuf, lineStart, lineEnd);
+    }
+
+    /* finds the last new line in buf, -1 if there is none */
+    private static int lastNewline(ByteBuffer buf, int limit) {
+        for (int i=limit-1;i>=0;i--) {
+            if (buf.get(i) == '\n')
+                return i;
+        }
+        return -1;
+    }
+
+    private static byte[] ascii(String s) {
+        byte[] b = new byte[s.length()];
+        for (int i=0;i<b.length;i++)
+            b[i] = (byte)s.charAt(i);
+        return b;
+    }
+
+    private static String ascii(ByteBuffer buf, int from, int to) {
+        char[] c = new char[to-from];
+        for (int i=0;i<c.length;i++)
+            c[i] = (char)(buf.get(from+i) & 0xff);
+        return new String(c);
+    }
+}
@@ -0,0 +1,75 @@
+/* TransactionDialog.java
+ *
+ * Created October 17, 2026
+ *
+ * This class creates a dialog that allows the user to
+ * enter a transaction ID.  The view scrolls to the
+ * transaction and all of its blocks are highlighted.
+ */
+
+// include needed packages
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+public class TransactionDialog extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    JFrame frame;     // frame that holds the dialog
+
+    public TransactionDialog(JFrame f, final VisTool parent) {
+        this.frame = f;
+
+        // create the panel that holds the input and buttons
+        JPanel transPanel = new JPanel();
+        transPanel.setPreferredSize(new Dimension(300,100));
+
+        // start from the transaction highlighted, if any
+        int id = parent.getSelectedTransaction();
+        final IntInput idInput = new IntInput("Transaction ID:",
+                id < 0 ? 0 : id, "");
+
+        // OK button
+        JButton okButton = new JButton("Ok");
+        okButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                int n;
+                try {
+                    n = idInput.getValue();
+                } catch (NumberFormatException nfe) {
+                    n = -1;
+                }
+                if (n < 0) {
+                    parent.displayErrorMessage("Input Error",
+                            "The transaction ID must be a number >= 0.");
+                    return;
+                }
+                if (parent.goToTransaction(n))
+                    frame.dispose();
+            }
+        });
+
+        // Cancel button
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                // do nothing and close the frame
+                frame.dispose();
+            }
+        });
+
+        transPanel.setLayout(new BorderLayout());
+        transPanel.add(idInput, BorderLayout.NORTH);
+
+        // create a 1x2 grid for the buttons
+        JPanel buttonPanel = new JPanel(new GridLayout(1,2));
+        buttonPanel.add(okButton);
+        buttonPanel.add(cancelButton);
+        transPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        // add the panel into the dialog's main panel
+        setLayout(new BorderLayout());
+        add(transPanel, BorderLayout.CENTER);
+    }
+}
@@ -0,0 +1,282 @@
+/* TransactionIndex.java
+ *
+ * Created October 17, 2026
+ *
+ * This class finds the commands of a transaction by its ID.  It
+ * keeps the transaction ID and the store index of every command
+ * entry of a BlockStore in runs sorted by ID, so the commands of a
+ * transaction are a binary search per run away and sit next to
+ * each other.  The blocks that follow from a command come right
+ * after it in the store, or are derived from it when the store only
+ * keeps commands.
+ *
+ * Commands appended to the store go into a tail of TAIL_SIZE
+ * commands that is searched as well.  A full tail is sorted into a
+ * run of its own, and a run is merged with the one before it once
+ * that is no more than twice its size, so there are only about
+ * log2 of the commands runs and every command is merged that many
+ * times.  The runs are LongColumns, kept in the file of the store
+ * when the store is off the heap, so only the tail and a few
+ * objects per run are on the heap.  When the end of the store is
+ * merged again (truncate()), the runs only remember from which
+ * entry on they were dropped, and leave those out when they are
+ * merged.
+ */
+
+// include needed packages
+import java.util.*;
+
+public class TransactionIndex {
+
+    // commands in the tail before it is sorted into a run
+    final static int TAIL_SIZE = 4096;
+
+    private BlockSource store;  // the blocks being indexed
+    private long indexed;       // entries of the store looked at
+    private long size;          // commands indexed
+
+    private Vector<Run> runs = new Vector<Run>(); // oldest and
+                                //   largest first
+
+    private int[] tailIDs = new int[TAIL_SIZE]; // commands added
+    private long[] tailEntries = new long[TAIL_SIZE]; // since the
+    private int tailSize;                       //   last run
+    private boolean tailSorted = true;
+
+    public TransactionIndex(BlockSource s) {
+        store = s;
+        add();
+    }
+
+    /* indexes the entries appended to the store since the last call */
+    public void add() {
+        add(store, indexed, 0);
+    }
+
+    /* indexes the entries of s as the ones that will be appended to
+       the store next.  The TraceLoadWorker indexes the blocks it
+       hands over this way, before they are added on the event
+       thread. */
+    public void add(BlockSource s) {
+        add(s, 0, indexed);
+    }
+
+    // indexes the entries of s from first on as the entries of
+    // the store offset after them
+    private void add(BlockSource s, long first, long offset) {
+        long n = s.size();
+        for (long p=first;p<n;p++) {
+            if (s.getType(p) == VisTool.NONE)
+                continue;
+            if (tailSize == TAIL_SIZE)
+                addRun();
+            int id = s.getID(p);
+            if (tailSize > 0 && id < tailIDs[tailSize-1])
+                tailSorted = false;
+            tailIDs[tailSize] = id;
+            tailEntries[tailSize] = offset+p;
+            tailSize++;
+            size++;
+        }
+        indexed = offset+n;
+    }
+
+    /* drops the entries of the store from first on, before the
+       store is truncated to first */
+    public void truncate(long first) {
+        int n = 0;
+        for (int i=0;i<tailSize;i++) {
+            if (tailEntries[i] < first) {
+                tailIDs[n] = tailIDs[i];
+                tailEntries[n] = tailEntries[i];
+                n++;
+            }
+        }
+        tailSize = n;
+
+        for (int i=0;i<runs.size();i++) {
+            Run r = runs.elementAt(i);
+            r.limit = Math.min(r.limit, first);
+        }
+        for (long p=first;p<indexed;p++) {
+            if (store.getType(p) != VisTool.NONE)
+                size--;
+        }
+        indexed = Math.min(indexed, first);
+    }
+
+    /* sorts the tail into a run and merges the runs that have
+       become about as large as the one before them */
+    private void addRun() {
+        if (!tailSorted)
+            sortTail();
+        Run r = new Run();
+        for (int i=0;i<tailSize;i++)
+            r.add(tailIDs[i], tailEntries[i]);
+        runs.addElement(r);
+        tailSize = 0;
+
+        int n = runs.size();
+        while (n >= 2 && runs.elementAt(n-2).size() <=
+                2*runs.elementAt(n-1).size()) {
+            Run a = runs.elementAt(n-2);
+            Run b = runs.elementAt(n-1);
+            runs.setElementAt(merge(a, b), n-2);
+            runs.removeElementAt(n-1);
+            a.close();
+            b.close();
+            n--;
+        }
+    }
+
+    /* merges two runs into a new one, leaving out what they
+       dropped */
+    private Run merge(Run a, Run b) {
+        Run r = new Run();
+        long i = a.next(0);
+        long j = b.next(0);
+        while (i < a.size() || j < b.size()) {
+            if (j == b.size() || (i < a.size() &&
+                    (a.ids.get(i) < b.ids.get(j) ||
+                    (a.ids.get(i) == b.ids.get(j) &&
+                    a.entries.get(i) <= b.entries.get(j))))) {
+                r.add(a.ids.get(i), a.entries.get(i));
+                i = a.next(i+1);
+            } else {
+                r.add(b.ids.get(j), b.entries.get(j));
+                j = b.next(j+1);
+            }
+        }
+        return r;
+    }
+
+    /* returns the store indices of the commands of transaction id
+       in store order, an empty array if there are none */
+    public long[] getCommands(int id) {
+        if (!tailSorted)
+            sortTail();
+
+        long[] r = new long[16];
+        int n = 0;
+        for (int k=0;k<runs.size();k++) {
+            Run run = runs.elementAt(k);
+            for (long i=run.firstAtOrAfter(id);
+                    i < run.size() && run.ids.get(i) == id;i++) {
+                long p = run.entries.get(i);
+                if (p >= run.limit)
+                    continue;
+                if (n == r.length)
+                    r = Arrays.copyOf(r, 2*n);
+                r[n++] = p;
+            }
+        }
+        for (int i=firstAtOrAfter(tailIDs, tailSize, id);
+                i < tailSize && tailIDs[i] == id;i++) {
+            if (n == r.length)
+                r = Arrays.copyOf(r, 2*n);
+            r[n++] = tailEntries[i];
+        }
+        r = Arrays.copyOf(r, n);
+        Arrays.sort(r);
+        return r;
+    }
+
+    private void sortTail() {
+        long[] keys = new long[tailSize];
+        for (int i=0;i<tailSize;i++)
+            keys[i] = ((long)tailIDs[i]<<32) | i;
+        Arrays.sort(keys);
+        long[] entries = Arrays.copyOf(tailEntries, tailSize);
+        for (int i=0;i<tailSize;i++) {
+            int k = (int)keys[i];
+            tailIDs[i] = (int)(keys[i]>>32);
+            tailEntries[i] = entries[k];
+        }
+        tailSorted = true;
+    }
+
+    // the first of the n sorted values that is at or above v
+    private static int firstAtOrAfter(int[] a, int n, int v) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo+hi) >>> 1;
+            if (a[mid] < v)
+                lo = mid+1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /* gives the runs back to the file of the store, the index can
+       not be used afterwards */
+    public void close() {
+        for (int i=0;i<runs.size();i++)
+            runs.elementAt(i).close();
+        runs.clear();
+    }
+
+//
+//
+// simple functions to return values
+//
+//
+
+    public BlockSource getStore() {
+        return store;
+    }
+
+    // are the entries of s just the ones indexed?
+    public boolean isIndexOf(BlockSource s) {
+        return s == store && indexed == s.size();
+    }
+
+    // number of commands indexed
+    public long size() {
+        return size;
+    }
+
+    // Commands sorted by transaction ID and then by store index
+    class Run {
+        LongColumn ids = new LongColumn(store.getPageFile());
+        LongColumn entries = new LongColumn(store.getPageFile());
+        long limit = Long.MAX_VALUE; // entries from here on were
+                                     //   dropped by truncate()
+
+        void add(long id, long entry) {
+            ids.add(id);
+            entries.add(entry);
+        }
+
+        // the first position from i on that was not dropped
+        long next(long i) {
+            while (i < size() && entries.get(i) >= limit)
+                i++;
+            return i;
+        }
+
+        // the first position whose ID is at or above id
+        long firstAtOrAfter(long id) {
+            long lo = 0;
+            long hi = size();
+            while (lo < hi) {
+                long mid = (lo+hi) >>> 1;
+                if (ids.get(mid) < id)
+                    lo = mid+1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+
+        long size() {
+            return ids.size();
+        }
+
+        void close() {
+            ids.close();
+            entries.close();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.util.*;
 import java.io.*;
+import java.util.concurrent.*;
 
 import java.awt.geom.*;
 import java.awt.image.*;
@@ -31,10 +32,85 @@ import javax.imageio.*;
 
 public class VisTool extends JPanel {
 
-    private Dimension size; // indicates size taken up by graphics
-    private Vector timeBlockVector;   //  holds the time blocks
+    private BlockStore timeBlocks;    //  holds the time blocks
 
     private boolean INPUT_READ = false;
+    private TraceLoadWorker loadWorker; // file being loaded, if any
+    private TraceFollower follower;     // file being followed, if any
+    private File[] windowFiles;         // files only a time window of
+                                        //   was loaded from, if any
+    private double windowStart;         // the window loaded from them
+    private double windowEnd;
+    private boolean windowPending;      // a new window waits for the
+                                        //   load running now
+    private int numChannels = 1;        // one file per memory channel
+    private int viewChannel = -1;       // channel shown, -1 for all
+    private JMenu channelMenu;          // picks the channel shown
+    private boolean autoScroll = true;  // follow the newest time
+    private int maxInputErrors = 5;     // bad lines before a load gives up
+    private boolean deriveBlocks;       // keep only the command blocks
+    private BlockStore derived = new HeapBlockStore(16); // blocks of one
+                                        //   command while painting
+    private LaneIndex laneIndex;        // lanes of timeBlocks, never
+                                        //   built on the event thread,
+                                        //   null until they are indexed
+    private LaneIndex windowLanes;      // lanes of the window until then
+    private double windowLanesStart;    //   and the window they are of
+    private double windowLanesEnd;
+    private IndexWorker indexWorker;    // indexing converted blocks,
+                                        //   if it is
+    private Vector<BlockStore> heldSteps = // steps of the follower held
+            new Vector<BlockStore>();   //   back until then
+    private BlockTiming blockTiming;    // times of the blocks by kind
+    final static int LABEL_MARGIN = 60; // pixels a transaction ID may
+                                        //   reach right of its block
+    private TileCache tiles = new TileCache(); // timing diagram and
+                                        //   stats graph already painted
+    private TilePainter tilePainter = new TilePainter(this, tiles);
+    private RenderingHints tileHints;   // of the drawing area, for the
+                                        //   tiles painted off it, taken
+                                        //   at the first paint
+    private PaintView paintView;        // the view as last looked at
+    private boolean paintErrorShown;    // an error of the tiles was shown
+    private long viewX;                 // left of the view, in pixels
+                                        //   from the left of the diagram
+    private long lastScrollX;           // viewX the tiles were last
+                                        //   fetched ahead of
+    private JScrollBar hScroll;         // scrolls the view across
+    private long scrollUnit = 1;        // pixels per unit of hScroll
+    private boolean settingScroll;      // hScroll is set from viewX
+    private double previewZoom;         // zoom of the last view whose
+    private int previewContent = -1;    //   tiles were all done, shown
+                                        //   scaled until the tiles at
+                                        //   a new zoom are done
+    private AffineTransform previewTransform = new AffineTransform();
+    final static Color PENDING_COLOR = new Color(235, 235, 235); // tile
+                                        //   not painted yet
+
+    // fonts of the drawing area, made once instead of on every paint
+    final static Font TITLE_FONT = new Font("Arial", Font.PLAIN, 20);
+    final static Font TEXT_FONT = new Font("Arial", Font.PLAIN, 12);
+    final static Font SMALL_FONT = new Font("Arial", Font.PLAIN, 10);
+
+    // what painting keeps from one paint to the next, so that a
+    // repaint does not allocate
+    private Font busLabelFont;          // font of busLabelFontSize
+    private int labelAreaHeight = -1;   // height the side bar is laid
+                                        //   out for
+    private String[][] bankLabels = new String[0][0]; // side bar rows
+    private String[] rankLabels = new String[0];      //   by rank/bank
+    private Rectangle clipRect = new Rectangle(); // clip being painted
+    private long[] selectedCommands;    // commands of the selected
+    private TransactionIndex selectedFrom; //   transaction and the
+    private long selectedFromSize;      //   index they were found in
+    private TickLabels timingMajorLabels = new TickLabels(false);
+    private TickLabels timingMinorLabels = new TickLabels(false);
+    private TickLabels barMajorLabels = new TickLabels(false);
+    private TickLabels barMinorLabels = new TickLabels(false);
+    private TickLabels barYLabels = new TickLabels(true);
+    private TransactionIndex transIndex; // commands of timeBlocks by
+                                        //   transaction ID
+    private int selectedTransaction = -1; // highlighted, -1 for none
 
 
     public File saved_directory; //file to save last directory accessed
@@ -49,7 +125,7 @@ public class VisTool extends JPanel {
     final static int STATS_GRAPH   = 5;
 
     // Stats/Bar Graph Variables
-    private Vector statsVector; // holds command/conflict count
+    private Vector<Integer> statsVector; // holds command/conflict count
     private boolean[] statsCommandMask;  // mask out unwanted commands
     private String[] statsCommandString; // command labels
     private int barYScale;          // Max value on the Y-axis
@@ -120,6 +196,39 @@ public class VisTool extends JPanel {
     public static final int BANKCONFLICT = 6;
     public static final int TFAWCONFLICT = 7; // not in present simulator
     public static final int NUM_COMMANDS = 6;
+    // commands that have a color, with NONE
+    final static int NUM_COLORS = TFAWCONFLICT+1;
+
+    // draw a lane per pixel column above this many blocks per column
+    final static int LOD_BLOCKS_PER_PIXEL = 1;
+    // blocks of a lane summed up between looks at isCancelled()
+    final static int LOD_CANCEL_BLOCKS = 4096;
+    // fewest pixels a clock cycle is drawn in, below that the clock
+    // is a band of CLOCK_BAND_COLOR
+    final static int MIN_CLOCK_PIXELS = 2;
+    final static Color CLOCK_BAND_COLOR = Color.gray;
+    // fewest pixels between the ticks of the timing axis
+    final static int MIN_MAJOR_TICK_PIXELS = 100;
+    final static int MIN_MINOR_TICK_PIXELS = 10;
+    // most pixels per nanosecond the view is zoomed in to
+    final static double MAX_PIXELS_PER_NS = 4096;
+    // units of hScroll across the widest diagram, it is an int
+    final static long MAX_SCROLL_UNITS = 1<<30;
+    // pixels the arrows of hScroll and the mouse wheel scroll by
+    final static int SCROLL_PIXELS = 16;
+    // farthest out of a picture anything is drawn, in pixels
+    final static int MAX_COORD = 1<<29;
+    // zoom of one notch of the mouse wheel
+    final static double WHEEL_ZOOM = 1.25;
+    // pixels the mouse moves with a button down before it drags
+    final static int DRAG_PIXELS = 4;
+    // milliseconds before tiles that failed to paint are tried again
+    final static int PAINT_RETRY_MILLIS = 1000;
+    // most entries indexed on the event thread to show the window
+    // before the blocks are indexed, see getWindowLanes()
+    final static int MAX_WINDOW_ENTRIES = 1<<16;
+    // x of the start of the window in the stats graph
+    final static int STATS_X_OFFSET = 10;
 
     // Timing Diagram Bus locations
     final static int CLOCK     = 0;
@@ -153,8 +262,9 @@ public class VisTool extends JPanel {
 
         // initialize
         setOpaque(true);
-        size = new Dimension(0,0);
-        timeBlockVector = new Vector();
+        timeBlocks = new HeapBlockStore();
+        laneIndex = new LaneIndex(this, timeBlocks);
+        transIndex = new TransactionIndex(timeBlocks);
 
         pixelsPerNanoSecond = 10;
         timingXMajorTick = 1000;
@@ -179,12 +289,13 @@ public class VisTool extends JPanel {
         // calculate # of clock cycles for commands
         validateDRAMType();
         validateClocks();
+        timeBlocks.setTiming(blockTiming);
 
         timingStartTime = 0.0;
         timingEndTime = 40000.0;
 
         // initialize the stats vector
-        statsVector = new Vector();
+        statsVector = new Vector<Integer>();
         statsCommandString = new String[NUM_COMMANDS];
         statsCommandMask = new boolean[NUM_COMMANDS];
         for (int o=0;o<NUM_COMMANDS;o++) {
@@ -241,7 +352,7 @@ public class VisTool extends JPanel {
                         break;
 
                     case STATS_GRAPH:
-                        paintStatsGraph(g);
+                        copyTiles(g);
                         drawLabelAreaHeight = DEF_AREA_HEIGHT;
                         break;
 
@@ -277,18 +388,21 @@ public class VisTool extends JPanel {
                         System.out.println("Error in paintComponent");
                         break;
                 }
-                busLabelArea.setPreferredSize(
-                        new Dimension(busLabelAreaWidth, drawLabelAreaHeight));
-                busLabelArea.revalidate();
+                setLabelAreaHeight(drawLabelAreaHeight);
+            }
+
+            // shows the transaction info of the block under the mouse
+            public String getToolTipText(MouseEvent e) {
+                return getBlockToolTip(e.getX(), e.getY());
             }
         };
+        ToolTipManager.sharedInstance().registerComponent(drawingArea);
 
         // This is the side bar where the bus labels and key go
         busLabelArea = new JPanel() {
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                g.setFont(new Font("Arial", Font.PLAIN,
-                        busLabelFontSize));
+                g.setFont(getBusLabelFont());
 
                 g.setColor(Color.black);
 
@@ -339,8 +453,7 @@ public class VisTool extends JPanel {
                         // print expanded banks
                         for (int j=0;j<num_rank;j++) {
                             for (int k = 0;k<num_bank;k++) {
-                                rank_bank_label =
-                                        "  Rank[" + j + "] Bank[" + k + "]";
+                                rank_bank_label = getBankLabel(j, k);
                                 g.drawString(rank_bank_label,
                                         colSpacing, (2+j*num_rank+k)*
                                         (rowHeight+rowSpacing)+rowHeight);
@@ -368,7 +481,7 @@ public class VisTool extends JPanel {
 
                         // print expanded device utilization
                         for (int j=0;j<num_rank;j++) {
-                            rank_bank_label = "     Util: Rank[" + j + "]";
+                            rank_bank_label = getRankLabel(j);
                             g.drawString(rank_bank_label,
                                     colSpacing,
                                     (3+j)*(rowHeight+rowSpacing)+rowHeight);
@@ -396,8 +509,7 @@ public class VisTool extends JPanel {
                         // print expanded banks
                         for (int j=0;j<num_rank;j++) {
                             for (int k = 0;k<num_bank;k++) {
-                                rank_bank_label =
-                                        "  Rank[" + j + "] Bank[" + k + "]";
+                                rank_bank_label = getBankLabel(j, k);
                                 g.drawString(rank_bank_label,
                                         colSpacing, (2+j*num_rank+k)*
                                         (rowHeight+rowSpacing)+rowHeight);
@@ -406,7 +518,7 @@ public class VisTool extends JPanel {
 
                         // print expanded device utilization
                         for (int l=0;l<num_rank;l++) {
-                            rank_bank_label = "     Util: Rank[" + l + "]";
+                            rank_bank_label = getRankLabel(l);
                             g.drawString(rank_bank_label,
                                     colSpacing, (2+num_rank*num_bank+l)*
                                     (rowHeight+rowSpacing)+rowHeight);
@@ -433,18 +545,54 @@ public class VisTool extends JPanel {
         busLabelArea.setBackground(Color.white);
 
         drawingArea.setBackground(Color.white);
-        drawingArea.addMouseListener(new MyMouseListener());
+        MyMouseListener mouse = new MyMouseListener();
+        drawingArea.addMouseListener(mouse);
+        drawingArea.addMouseMotionListener(mouse);
+        drawingArea.addMouseWheelListener(mouse);
+
+        // the drawing area is only as wide as the view, and the
+        // diagram is painted from viewX on, so it can be wider than
+        // an int counts
+        drawingArea.setPreferredSize(new Dimension(0,0));
+        drawingArea.addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                moveView(viewX);
+            }
+        });
 
         //Put the drawing area in a scroll pane
-        scroller = new JScrollPane(drawingArea);
+        scroller = new JScrollPane(drawingArea,
+                JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+                JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
         scroller.setPreferredSize(new Dimension(600,drawLabelAreaHeight));
+
+        // scrolls viewX, in scrollUnit pixels per unit
+        hScroll = new JScrollBar(JScrollBar.HORIZONTAL);
+        hScroll.setVisible(false);
+        hScroll.addAdjustmentListener(new AdjustmentListener() {
+            public void adjustmentValueChanged(AdjustmentEvent e) {
+                if (settingScroll)
+                    return;
+                long x = e.getValue()*scrollUnit;
+                // the last unit may be less than scrollUnit wide
+                if (e.getValue() >= hScroll.getMaximum()-
+                        hScroll.getVisibleAmount())
+                    x = Long.MAX_VALUE;
+                settingScroll = true;
+                setViewX(x);
+                settingScroll = false;
+            }
+        });
+        JPanel view = new JPanel(new BorderLayout());
+        view.add(scroller, BorderLayout.CENTER);
+        view.add(hScroll, BorderLayout.SOUTH);
         setLayout(new BorderLayout());
 
         // add panel to the left of the main panel
         add(busLabelArea, BorderLayout.WEST);
 
         // add scroll pane to center (will resize with window)
-        add(scroller, BorderLayout.CENTER);
+        add(view, BorderLayout.CENTER);
     }
 
 //
@@ -453,7 +601,7 @@ public class VisTool extends JPanel {
 //
 //
 
-    /* Function reads DRAM parameters from a file and
+    /* Function reads DRAM parameters from a file in the background
        and sets system parameters to these values */
     public void inputParamFile() throws IOException {
 
@@ -472,19 +620,12 @@ public class VisTool extends JPanel {
         // Get the selected file
         File file = fc.getSelectedFile();
 
-        // create buffered reader to read file
-        File inputFile = fc.getSelectedFile();
+        // the file to read
+        final File inputFile = fc.getSelectedFile();
         if (inputFile == null) {
             throw new NullPointerException();
         }
 
-        BufferedReader br
-                = new BufferedReader(new FileReader(inputFile));
-
-        String line;     // the line being read
-        int success = 0; // what was the outcome of parseing the line?
-        int errors = 0;  // how many errors were encountered?
-
         // Prompts the user is they wish to import new data
         int no = JOptionPane.showConfirmDialog
                 (this,
@@ -494,10 +635,45 @@ public class VisTool extends JPanel {
                 JOptionPane.YES_NO_OPTION);
 
         if (no == 1) {
-            br.close();
             return;
         }
 
+        // read the file on a background thread and apply the
+        // values back on the event thread
+        new SwingWorker<Vector<String>, Object>() {
+            protected Vector<String> doInBackground() throws IOException {
+                Vector<String> lines = new Vector<String>();
+                BufferedReader br
+                        = new BufferedReader(new FileReader(inputFile));
+                try {
+                    String line;
+                    while ((line=br.readLine())!=null)
+                        lines.addElement(line);
+                } finally {
+                    br.close();
+                }
+                return lines;
+            }
+
+            protected void done() {
+                try {
+                    applyParamLines(get());
+                } catch (ExecutionException ee) {
+                    displayErrorMessage(" ", "File Load Error.");
+                } catch (InterruptedException ie) {
+                    // not interrupted
+                }
+            }
+        }.execute();
+    }
+
+    /* Sets system parameters to the values in the lines
+       of a parameter file */
+    public void applyParamLines(Vector<String> lines) {
+        String line;     // the line being read
+        int success = 0; // what was the outcome of parseing the line?
+        int errors = 0;  // how many errors were encountered?
+
         int p; // position in string
         int s; // position of next space, set to -1 for first character
         int l = 0; // length of string
@@ -505,7 +681,8 @@ public class VisTool extends JPanel {
         String temp_value;
 
         // read lines until the file is exhausted
-        while ((line=br.readLine())!=null) {
+        for (int i=0;i<lines.size();i++) {
+            line = lines.elementAt(i);
             if (line.length() != 0) {
 
                 // get parameter name
@@ -581,168 +758,148 @@ public class VisTool extends JPanel {
         displayInfoMessage("Import completed.", success +
                 " parameters were read " + "successfully.\n" +
                 "There were " + errors + " errors.");
+
+        // move the blocks to the new timing
+        validateDRAMType();
+        validateClocks();
+        retimeBlocks();
         recreateStatsVector();
         repaintDrawingArea();
-        br.close();
-    }
-
-    /* This funtion will take one line of the input data and
-       store the values in a TimeBlock found in the TimeBlockVector.
-       The function works by looking for spaces (' ') in the input
-       line and parsing the characters it find between spaces. */
-
-    public int parseInputLine(String line, int lineNum) {
-        int p = 0; // position in string
-        int s = 0; // position of next space
-        int l = line.length(); // length of the line
-
-        // TimeBlock values
-        double time;
-        int type;
-        int transID;
-        int rank;
-        int bank;
-        int row;
-        int col;
-
-        // find first space
-        s = line.indexOf(' ');
-        // verify the first space is valid
-        if (s <= p || s >= l) {
-            displayErrorMessage("Input Error",
-                    "Error parsing input on line "+
-                    lineNum + ".");
-            return 0;
-        }
-        // store the first word as a double into the time variable
-        // FIX: catch NumberFormatException
-        time = Double.parseDouble(line.substring(p,s));
-
-        // See if the command is in the time window of interest
-        // if not, ignore.
-        if (time < timingStartTime || time > timingEndTime) {
-            return 2; // fix this
-        }
+    }
 
-        // reposition line pointers to find second word
-        p=s+1;
-        s = p+(line.substring(p,l)).indexOf(' ');
+    /* This function prompts the user for input files and starts a
+       TraceLoadWorker, which decodes and expands the files on all
+       cores without blocking the window.  Each file is the trace of
+       one memory channel, numbered in the order of the file names. */
+    public void inputFile() throws IOException {
+        inputFile(false);
+    }
 
-        if (s <= p || s >= l) {
-            displayErrorMessage("Input Error",
-                    "Error parsing input on line "+
-                    lineNum + ".");
-            return 0;
-        }
-
-        // Match string with command types
-        if (line.substring(p,s).compareTo("ROWACT")==0) {
-            type = ROWACT;
-        } else if (line.substring(p,s).compareTo("READ")==0) {
-            type = READ;
-        } else if (line.substring(p,s).compareTo("WRITE")==0) {
-            type = WRITE;
-        } else if (line.substring(p,s).compareTo("PRECHARGE")==0) {
-            type = PRECHARGE;
-        } else if (line.substring(p,s).compareTo("REFRESH")==0) {
-            type = REFRESH;
-        } else if (line.substring(p,s).compareTo("BANKCONFLICT")==0) {
-            type = BANKCONFLICT;
-        }
-        /*
-        else if (line.substring(p,s).compareTo("ROWCONFLICT")==0) {
-            type = ROWCONFLICT;
-            }*/
-        else if (line.substring(p,s).compareTo("TFAWCONFLICT")==0) {
-            type = TFAWCONFLICT;
-        } else {
-            displayErrorMessage("Input Error",
-                    "Command '"+line.substring(p,s)+
-                    "' not supported.");
-            return 0;
-        }
+    /* Same as inputFile, but keeps adding the commands the simulator
+       appends to the file once it has been loaded. */
+    public void followFile() throws IOException {
+        inputFile(true);
+    }
 
-        // find transaction id
-        p=s+1;
-        s = p+(line.substring(p,l)).indexOf(' ');
+    /* Same as inputFile, but only loads the commands between the
+       start and end time.  A large trace is indexed once (see
+       TraceIndex), so only the part of it that can hold the window
+       is read, and a window set later that goes beyond the one
+       loaded is read from the same files again. */
+    public void inputWindow() throws IOException {
+        inputFile(false, true);
+    }
 
-        if (s <= p || s >= l) {
-            displayErrorMessage("Input Error",
-                    "Error parsing input on line "+
-                    lineNum + ".");
-            return 0;
-        }
-        transID = Integer.parseInt(line.substring(p,s));
+    public void inputFile(boolean follow) throws IOException {
+        inputFile(follow, false);
+    }
 
-        // find rank
-        p=s+1;
-        s = p+(line.substring(p,l)).indexOf(' ');
+    public void inputFile(boolean follow, boolean window) throws IOException {
 
-        if (s <= p || s >= l) {
+        if (loadWorker != null) {
             displayErrorMessage("Input Error",
-                    "Error parsing input on line "+
-                    lineNum + ".");
-            return 0;
+                    "A file is already being loaded.");
+            return;
         }
-        rank = Integer.parseInt(line.substring(p,s));
 
-        // find bank
-        p=s+1;
-        s = p+(line.substring(p,l)).indexOf(' ');
+        JFrame frame = new JFrame();
+
+        // Create a file chooser and set directory.  Only a single
+        // file can be followed.
+        JFileChooser fc = new JFileChooser();
+        fc.setCurrentDirectory(saved_directory);
+        fc.setMultiSelectionEnabled(!follow);
 
-        if (s <= p || s >= l) {
-            displayErrorMessage("Input Error",
-                    "Error parsing input on line "+
-                    lineNum + ".");
-            return 0;
-        }
-        bank = Integer.parseInt(line.substring(p,s));
+        // Show dialog; this method does not return until dialog is closed
+        fc.showOpenDialog(frame);
 
-        // find row
-        p=s+1;
-        s = p+(line.substring(p,l)).indexOf(' ');
+        // Save directory for later
+        saved_directory = fc.getCurrentDirectory();
 
-        if (s <= p || s >= l) {
-            displayErrorMessage("Input Error",
-                    "Error parsing input on line "+
-                    lineNum + ".");
-            return 0;
+        // the files to decode, one per channel
+        File[] inputFiles = fc.getSelectedFiles();
+        if (inputFiles.length == 0 && fc.getSelectedFile() != null)
+            inputFiles = new File[] {fc.getSelectedFile()};
+        if (inputFiles.length == 0) {
+            throw new NullPointerException();
         }
-        row = Integer.parseInt(line.substring(p,s));
+        Arrays.sort(inputFiles);
 
-        // find column
-        p=s+1;
-        s = p+(line.substring(p,l)).indexOf(' ');
-        if (s < p) s = l;
+        // Prompts the user is they wish to import new data
+        int no = JOptionPane.showConfirmDialog
+                (this,
+                "All current data will be removed.\n"+
+                "Proceed anyway?",
+                "Import New Data?",
+                JOptionPane.YES_NO_OPTION);
 
-        if (p >= l) {
-            displayErrorMessage("Input Error",
-                    "Error parsing input on line "+
-                    lineNum + ".");
-            return 0;
+        if (no == 1) {
+            return;
         }
-        col = Integer.parseInt(line.substring(p,s));
 
-        // determine if vector must resize or not
-        if (timeBlockVector.size() == timeBlockVector.capacity()) {
-            timeBlockVector.ensureCapacity(timeBlockVector.size()*2);
+        // decode and expand the whole file on all cores in the
+        // background, giving up after the error limit.  The start
+        // and end time only select what is shown, unless only the
+        // window is loaded.
+        if (window) {
+            windowFiles = inputFiles;
+            windowStart = timingStartTime;
+            windowEnd = timingEndTime;
+            startLoad(inputFiles, windowStart, windowEnd, false);
+        } else {
+            windowFiles = null;
+            startLoad(inputFiles, Double.NEGATIVE_INFINITY,
+                    Double.POSITIVE_INFINITY, follow);
         }
+    }
+
+    /* Clears the timeBlocks and starts a TraceLoadWorker that loads
+       the commands of the files between start and end */
+    private void startLoad(File[] inputFiles, double start, double end,
+            boolean follow) {
+        stopFollowing();
+        windowPending = false;
+        clearTimeBlocks();
+        selectedTransaction = -1;
+        recreateStatsVector();
+        repaintDrawingArea();
 
-        // create the time blocks from associated command
-        createTimeBlocks(time,type,transID,rank,bank,row,col);
+        loadWorker = new TraceLoadWorker(this, inputFiles,
+                start, end, maxInputErrors);
+        loadWorker.setFollow(follow);
+        loadWorker.start();
+    }
 
-        return 1;
+    /* Called by the TimeDialog once the start and end time are set.
+       If only a time window of the files was loaded and the new
+       window goes beyond it, the new window is loaded instead.
+       While a load runs the new window is loaded once it is done. */
+    public void reloadWindow() {
+        if (windowFiles == null)
+            return;
+        if (loadWorker != null) {
+            windowPending = true;
+            return;
+        }
+        if (timingStartTime >= windowStart && timingEndTime <= windowEnd)
+            return;
+        windowStart = timingStartTime;
+        windowEnd = timingEndTime;
+        startLoad(windowFiles, windowStart, windowEnd, false);
     }
 
-    /* This function prompts the user for an input file, reads lines from the
-       file and sends them to parseInputLine for processing.  */
-    public void inputFile() throws IOException {
+    /* This function prompts the user for text data files, one per
+       channel, and writes them as one binary trace (see BinaryTrace)
+       next to the first, which loads without any parsing.  The
+       conversion runs in the background. */
+    public void convertToBinary() throws IOException {
 
         JFrame frame = new JFrame();
 
         // Create a file chooser and set directory
         JFileChooser fc = new JFileChooser();
         fc.setCurrentDirectory(saved_directory);
+        fc.setMultiSelectionEnabled(true);
 
         // Show dialog; this method does not return until dialog is closed
         fc.showOpenDialog(frame);
@@ -750,72 +907,458 @@ public class VisTool extends JPanel {
         // Save directory for later
         saved_directory = fc.getCurrentDirectory();
 
-        // Get the selected file
-        File file = fc.getSelectedFile();
-
-        // create buffered reader to read file
-        File inputFile = fc.getSelectedFile();
-        if (inputFile == null) {
+        // the text files to convert, in channel order
+        final File[] inputFiles = fc.getSelectedFiles();
+        if (inputFiles.length == 0) {
             throw new NullPointerException();
         }
-        //File inputFile = new File(inputFileName);
-        BufferedReader br
-                = new BufferedReader(new FileReader(inputFile));
-        String line;     // the line being read
-        int success = 0; // what was the outcome of parseing the line?
-        int num = 1;     // how many commands were read?
-        int errors = 0;  // how many errors were encountered?
-
-        // Prompts the user is they wish to import new data
-        int no = JOptionPane.showConfirmDialog
-                (this,
-                "All current data will be removed.\n"+
-                "Proceed anyway?",
-                "Import New Data?",
-                JOptionPane.YES_NO_OPTION);
+        final File inputFile = inputFiles[0];
+
+        for (int c=0;c<inputFiles.length;c++) {
+            RandomAccessFile raf = new RandomAccessFile(inputFiles[c], "r");
+            try {
+                if (BinaryTrace.isBinary(raf.getChannel())) {
+                    displayErrorMessage("Convert Error",
+                            inputFiles[c].getName()+
+                            " is already a binary trace.");
+                    return;
+                }
+            } finally {
+                raf.close();
+            }
+        }
 
-        if (no == 1) {
-            br.close();
+        // ask where to write the binary trace
+        fc.setMultiSelectionEnabled(false);
+        fc.setSelectedFile(new File(inputFile.getPath()+
+                BinaryTrace.EXTENSION));
+        if (fc.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION)
+            return;
+        final File outputFile = fc.getSelectedFile();
+        if (Arrays.asList(inputFiles).contains(outputFile)) {
+            displayErrorMessage("Convert Error",
+                    "Cannot write the binary trace over its own input.");
             return;
         }
 
-        // clear the timeBlockVector for the new data
-        timeBlockVector.removeAllElements();
+        new SwingWorker<BinaryTraceWriter, Object>() {
+            protected BinaryTraceWriter doInBackground() throws IOException {
+                return BinaryTraceWriter.convert(inputFiles, outputFile);
+            }
 
-        // read lines until the file is exhausted
-        while ((line=br.readLine())!=null) {
-            // valid line found, parse it
-            success = parseInputLine(line,num);
-            if (success == 1) {
-                num++;
-            }
-            // If the command is out of the time range
-            else if (success == 2) { // fix this
-                // Out of time range
-            }
-            // input error was found
-            else {
-                errors++;
-                if (errors > 5) {
-                    displayErrorMessage("Too Many Errors",
-                            "Aborting file input.");
-                    br.close();
-                    return;
+            protected void done() {
+                try {
+                    BinaryTraceWriter w = get();
+                    if (w.getErrorReport().getErrors() > 0)
+                        openErrorReport(inputFile.getName(),
+                                w.getErrorReport());
+                    displayInfoMessage("Convert Data File",
+                            "Wrote "+w.getNumRecords()+
+                            " command(s) to "+outputFile.getName()+".");
+                } catch (ExecutionException ee) {
+                    displayErrorMessage(" ", "File Convert Error.");
+                } catch (InterruptedException ie) {
+                    // not interrupted
                 }
             }
+        }.execute();
+    }
+
+    /* Adds the TimeBlocks of a chunk loaded by the TraceLoadWorker,
+       so they can be viewed while the rest is still loading.  The
+       worker started store with the first chunk, which becomes the
+       store of the diagram, and indexed the lanes of every chunk
+       into lanes.  The others are added to the store as segments
+       and the lanes they were indexed into are shown, none of them
+       is copied or indexed here.  Only the new blocks are counted
+       into the stats. */
+    public void appendTimeBlocks(SegmentedBlockStore store,
+            BlockStore blocks, LaneIndex lanes, long[] laneSizes) {
+        boolean first = (timeBlocks != store);
+        if (first)
+            setTimeBlocks(store, lanes, null);
+        tilePainter.beginChange();
+        try {
+            if (!first)
+                store.addSegment(blocks);
+            // shown with the timing of the diagram
+            lanes.publish(laneSizes);
+        } finally {
+            tilePainter.endChange();
+        }
+        INPUT_READ = true;
+        extendStatsVector();
+        collectStats(blocks, 0);
+    }
+
+    /* Replaces the blocks with ones indexed already, freeing the
+       old ones and their indexes.  transIndex may be null while a
+       load is still indexing the blocks, and both indexes while an
+       IndexWorker is (see indexTimeBlocks()). */
+    private void setTimeBlocks(BlockStore blocks, LaneIndex lanes,
+            TransactionIndex ix) {
+        tilePainter.beginChange();
+        try {
+            // the indexes give their columns back to the store
+            if (laneIndex != null && laneIndex != lanes)
+                laneIndex.close();
+            if (windowLanes != null)
+                windowLanes.close();
+            windowLanes = null;
+            if (transIndex != null && transIndex != ix)
+                transIndex.close();
+            if (timeBlocks != blocks)
+                timeBlocks.close();
+            timeBlocks = blocks;
+            timeBlocks.setTiming(blockTiming);
+            laneIndex = lanes;
+            if (laneIndex != null)
+                laneIndex.retime();
+            transIndex = ix;
+        } finally {
+            tilePainter.endChange();
+        }
+    }
+
+    /* The lanes the diagram is painted from: those of timeBlocks, or
+       those of the window while timeBlocks are still being indexed.
+       Only on the event thread. */
+    private LaneIndex getLanes() {
+        return (laneIndex != null) ? laneIndex : getWindowLanes();
+    }
+
+    /* The lanes of the blocks that can show up in the time window.
+       They are indexed here, on the event thread, so a window with
+       more than MAX_WINDOW_ENTRIES entries shows no blocks until
+       the IndexWorker is done; the others take no longer to show
+       the larger the trace is. */
+    private LaneIndex getWindowLanes() {
+        if (windowLanes != null && windowLanesStart == timingStartTime &&
+                windowLanesEnd == timingEndTime)
+            return windowLanes;
+
+        // how far before and after its transaction a block can be
+        double before = 0;
+        double after = 0;
+        for (int k=0;k<BlockKind.getNumKinds();k++) {
+            before = Math.min(before, blockTiming.getStart(k));
+            after = Math.max(after, blockTiming.getEnd(k));
+        }
+        long first = timeBlocks.firstAtOrAfter(timingStartTime-after);
+        long end = timeBlocks.firstAtOrAfter(timingEndTime-before);
+        if (end-first > MAX_WINDOW_ENTRIES)
+            end = first;
+
+        // the tiles of the old lanes stop before they are freed
+        tilePainter.beginChange();
+        try {
+            if (windowLanes != null)
+                windowLanes.close();
+            windowLanes = new LaneIndex(this, timeBlocks, first, end);
+            windowLanesStart = timingStartTime;
+            windowLanesEnd = timingEndTime;
+        } finally {
+            tilePainter.endChange();
+        }
+        return windowLanes;
+    }
+
+    /* Replaces the blocks with none, which are indexed right away */
+    private void clearTimeBlocks() {
+        cancelIndexing();
+        BlockStore s = new HeapBlockStore();
+        setTimeBlocks(s, new LaneIndex(this, s), new TransactionIndex(s));
+    }
+
+    /* Keeps the index the TraceLoadWorker made of the blocks while
+       loading, if it is still the index of timeBlocks, and frees it
+       otherwise */
+    private void takeTransactionIndex(TransactionIndex ix) {
+        if (ix == null)
+            return;
+        if (transIndex == null && ix.isIndexOf(timeBlocks))
+            transIndex = ix;
+        else
+            ix.close();
+    }
+
+    /* Called by the TraceLoadWorker once a load has finished, been
+       cancelled, or failed (loader is null). */
+    public void finishInputFile(ChunkedTraceLoader loader,
+            boolean allPublished, long publishedCommands) {
+        boolean follow = loadWorker.isFollow();
+        File file = loadWorker.getFile();
+        File[] files = loadWorker.getFiles();
+        String name = (files.length > 1) ?
+                files.length+" files" : file.getName();
+        TransactionIndex ix = loadWorker.getTransactionIndex();
+        BlockStore merged = loadWorker.getMergedBlocks();
+        LaneIndex lanes = loadWorker.getMergedLaneIndex();
+        loadWorker = null;
+        setNumChannels(loader != null ? loader.getNumChannels() :
+                files.length);
+
+        if (loader == null) {
+            clearTimeBlocks();
+            takeTransactionIndex(ix);
+            recreateStatsVector();
+            repaintDrawingArea();
+            return;
+        }
+
+        // report the lines that could not be decoded
+        if (loader.getErrors() > 0)
+            openErrorReport(name, loader.getErrorReport());
+
+        if (loader.isAborted()) {
+            clearTimeBlocks();
+            displayErrorMessage("Too Many Errors",
+                    "Aborting file input.");
+        } else if (loader.isCancelled()) {
+            displayInfoMessage("Data Input Cancelled",
+                    "Kept the first "+publishedCommands+
+                    " command(s) of the file.");
+        } else {
+            // the chunks overlapped in time and were merged, and
+            // indexed by the worker.  A mapped trace is shown right
+            // away and indexed in the background.
+            if (!allPublished) {
+                setTimeBlocks(merged, lanes, ix);
+                ix = null;
+                if (lanes == null)
+                    indexTimeBlocks();
+            }
+            INPUT_READ = true;
+
+            // file is empty, report the number of successful commands
+            displayInfoMessage("Data Input Success",
+                    "You have imported "+
+                    loader.getNumCommands() +
+                    " command(s) successfully!");
+
+            // tail the file from where the load stopped.  Binary
+            // traces are written whole, there is nothing to follow.
+            if (follow && loader.isBinary()) {
+                displayInfoMessage("Follow Data File",
+                        file.getName()+" is a binary trace and"+
+                        " cannot be followed.");
+            } else if (follow) {
+                follower = new TraceFollower(this, file,
+                        loader.getLoadedSize(), loader.getNumLines(),
+                        Double.NEGATIVE_INFINITY);
+                follower.execute();
+                extendEndTime(timeBlocks);
+            }
+        }
+
+        takeTransactionIndex(ix);
+        recreateStatsVector();
+        repaintDrawingArea();
+
+        // derived blocks were switched on or off while loading
+        convertTimeBlocks();
+
+        // the window was moved while the load ran
+        if (windowPending) {
+            windowPending = false;
+            reloadWindow();
         }
+    }
 
+    /* Adds the TimeBlocks the TraceFollower decoded from the end of
+       the file.  Blocks that go before the last ones are merged in
+       with the ones after them, which are found with a binary
+       search, so only the end of the store and of its indexes is
+       redone.  Only the new blocks are counted into the stats, and
+       only the tiles from where they start on are painted again. */
+    public void appendFollowedBlocks(BlockStore blocks) {
+        // the blocks are being indexed, they must not change
+        if (indexWorker != null) {
+            heldSteps.addElement(blocks);
+            return;
+        }
+        blocks.setTiming(blockTiming);
+        blocks = convertBlocks(blocks, timeBlocks.isCommandsOnly());
         INPUT_READ = true;
 
-        // file is empty, report the number of successful commands
-        displayInfoMessage("Data Input Success",
-                "You have imported "+
-                (num-1) +
-                " command(s) successfully!");
+        // the blocks from first on move to make room
+        long first = timeBlocks.size();
+        if (!blocks.isEmpty())
+            first = timeBlocks.firstAtOrAfter(
+                    blocks.getTransactionStartTime(0));
+        BlockStore add = blocks;
+        if (first < timeBlocks.size()) {
+            add = blocks.newStore(timeBlocks.size()-first+blocks.size());
+            timeBlocks.merge(first, blocks, add);
+        }
+
+        // the tiles change from the first new block on, or from the
+        // end of the window if the window grows before it
+        double from = timingEndTime;
+        if (!blocks.isEmpty())
+            from = Math.min(from, blocks.getTransactionStartTime(0));
+
+        tilePainter.beginAppend();
+        try {
+            if (transIndex != null)
+                transIndex.truncate(first);
+            timeBlocks.truncate(first);
+            timeBlocks.addAll(add);
+            laneIndex.truncate(first);
+            laneIndex.add(first);
+            if (transIndex != null)
+                transIndex.add();
+            extendEndTime(blocks);
+            growStatsVector();
+            countStats(blocks, 0);
+        } finally {
+            tilePainter.endAppend();
+        }
+        for (int c=TIMING_DIAG; c < STATS_GRAPH; c++)
+            tiles.dropFrom(c, colSpacing, timingStartTime, from);
+        // a bar starts at the tick its commands are counted in
+        double tick = timingStartTime+barXMinorTick*
+                Math.floor((from-timingStartTime)/barXMinorTick);
+        tiles.dropFrom(STATS_GRAPH, STATS_X_OFFSET, timingStartTime, tick);
+        moveView(viewX);
+        drawingArea.repaint();
+
+        if (autoScroll)
+            scrollToEnd();
+    }
+
+    /* Moves the end time out to the last of the blocks to end,
+       returns true if it moved */
+    private boolean extendEndTime(BlockSource blocks) {
+        double end = timingEndTime;
+        for (long p=0;p<blocks.size();p++) {
+            if (blocks.isCommandsOnly()) {
+                deriveBlocks(blocks, p, derived);
+                for (int q=0;q<derived.size();q++)
+                    end = Math.max(end, derived.getEndTime(q));
+            } else {
+                end = Math.max(end, blocks.getEndTime(p));
+            }
+        }
+        if (end <= timingEndTime)
+            return false;
+        timingEndTime = end;
+        return true;
+    }
+
+    /* Called by the TraceFollower once it has stopped */
+    public void followStopped(TraceFollower f, String message,
+            ErrorReport report) {
+        if (follower == f)
+            follower = null;
+        if (report.getErrors() > 0)
+            openErrorReport(f.getFile().getName(), report);
+        if (message != null)
+            displayInfoMessage("Follow Data File", message);
+    }
+
+    /* Stops following the data file, if one is being followed */
+    public void stopFollowing() {
+        if (follower != null) {
+            follower.stop();
+            follower = null;
+        }
+    }
+
+    /* Keeps only the command blocks and derives the others when
+       they are drawn, or goes back to keeping every block.  The
+       blocks of a load are converted once it is done. */
+    public void setDeriveBlocks(boolean b) {
+        deriveBlocks = b;
+        convertTimeBlocks();
+    }
+
+    /* Converts timeBlocks to the way the diagram keeps its blocks
+       if that changed, on an IndexWorker, which also indexes them.
+       Until they are swapped in the blocks are shown as they are.
+       Nothing is converted while a load or another conversion
+       runs, they call this again when they are done. */
+    private void convertTimeBlocks() {
+        if (loadWorker != null || indexWorker != null)
+            return;
+        if (timeBlocks.isCommandsOnly() == deriveBlocks ||
+                timeBlocks.isCommandsOnlyAlways())
+            return;
+        indexWorker = new IndexWorker(this, timeBlocks, deriveBlocks);
+        indexWorker.execute();
+    }
+
+    /* Indexes timeBlocks as they are on an IndexWorker, after they
+       were shown without indexes.  Until the indexes are swapped in
+       the diagram shows the lanes of the window. */
+    private void indexTimeBlocks() {
+        indexWorker = new IndexWorker(this, timeBlocks,
+                timeBlocks.isCommandsOnly());
+        indexWorker.execute();
+    }
 
+    /* Called by the IndexWorker when it is done.  Its blocks and
+       indexes take the place of timeBlocks and theirs, unless the
+       blocks were replaced meanwhile.  The steps of the follower
+       held back are added then. */
+    public void finishIndexing(IndexWorker w) {
+        if (w != indexWorker) {
+            w.close();
+            return;
+        }
+        indexWorker = null;
+        if (w.isFailed()) {
+            w.close();
+            displayErrorMessage("Index Blocks",
+                    "The blocks could not be indexed.");
+        } else {
+            setTimeBlocks(w.getBlocks(), w.getLaneIndex(),
+                    w.getTransactionIndex());
+        }
         recreateStatsVector();
         repaintDrawingArea();
-        br.close();
+
+        while (!heldSteps.isEmpty())
+            appendFollowedBlocks(heldSteps.remove(0));
+        // switched again meanwhile
+        convertTimeBlocks();
+    }
+
+    /* Drops the IndexWorker running, if any, before the blocks it
+       indexes are replaced.  It frees what it made when it is done. */
+    private void cancelIndexing() {
+        indexWorker = null;
+        while (!heldSteps.isEmpty())
+            heldSteps.remove(0).close();
+    }
+
+    public boolean isDeriveBlocks() {
+        return deriveBlocks;
+    }
+
+    /* the times of the blocks by kind under the current timing, a
+       new table is made when the timing changes */
+    public BlockTiming getBlockTiming() {
+        return blockTiming;
+    }
+
+    public boolean isFollowing() {
+        return follower != null;
+    }
+
+    public void setAutoScroll(boolean b) {
+        autoScroll = b;
+        if (b && follower != null)
+            scrollToEnd();
+    }
+
+    /* scrolls to the newest time once the drawing area is resized */
+    public void scrollToEnd() {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                setViewX(Long.MAX_VALUE);
+            }
+        });
     }
 
     /* Function prints the current frame to a graphics file based on the type */
@@ -867,7 +1410,8 @@ public class VisTool extends JPanel {
     }
 
 
-    /* The funtion changes the pixels per nanosecond to zoom in */
+    /* The funtion changes the pixels per nanosecond to zoom in,
+       up to MAX_PIXELS_PER_NS.  x is a point of the drawing area. */
     public int zoomIn(int x, int y) {
         // determine which view is current
         switch (displayContent) {
@@ -875,32 +1419,17 @@ public class VisTool extends JPanel {
             case TIMING_DIAG_EXP_BANK:
             case TIMING_DIAG_EXP_UTIL:
             case TIMING_DIAG_EXP_ALL:
-                // zoom in by a factor of 2
-                pixelsPerNanoSecond = pixelsPerNanoSecond*2;
-                break;
             case STATS_GRAPH:
-                // zoom in by a factor of 2
-                barPixelsPerNS = barPixelsPerNS*2;
-                break;
+                // is it zoomed in too far?
+                if (getTileZoom()*2 > MAX_PIXELS_PER_NS)
+                    return 0;
+                // zoom in by a factor of 2, centered at the click
+                zoomTo(getTileZoom()*2, x, drawingArea.getWidth()/2);
+                return 1;
             default:
                 System.out.println("Error in Zoom in");
-                break;
-        }
-        // to change the perferred size of scroller
-        size.width = size.width*2;
-
-        // center the screen at the clicked point
-        if (2*x < size.width-getWidth()/2) {
-            centerDisplay(2*x,y);
-        } else {
-            centerDisplay(size.width-getWidth()/2,y);
+                return 1;
         }
-
-        // re-establish the drawing area
-        drawingArea.setPreferredSize(size);
-        drawingArea.revalidate();
-        drawingArea.repaint();
-        return 1;
     }
 
     /* The funtion changes the pixels per nanosecond to zoom out */
@@ -913,30 +1442,15 @@ public class VisTool extends JPanel {
             case TIMING_DIAG_EXP_ALL:
                 // is it zoomed out too far?
                 if (pixelsPerNanoSecond >= clockPeriod) {
-                    // zoom out by factor of 2
-                    pixelsPerNanoSecond = pixelsPerNanoSecond/2;
-                    // set scroller size
-                    size.width=size.width/2;
-                    // center the screen around click
-                    centerDisplay(x/2,y);
-                    // re-establist the drawing area
-                    drawingArea.setPreferredSize(size);
-                    drawingArea.revalidate();
-                    drawingArea.repaint();
+                    // zoom out by factor of 2, centered at the click
+                    zoomTo(pixelsPerNanoSecond/2, x,
+                            drawingArea.getWidth()/2);
                     return 1;
                 }
                 break;
             case STATS_GRAPH:
-                // zoom out by factor of 2
-                barPixelsPerNS = barPixelsPerNS/2;
-                // set scroller size
-                size.width=size.width/2;
-                // center the screen around click
-                centerDisplay(x/2,y);
-                // re-establist the drawing area
-                drawingArea.setPreferredSize(size);
-                drawingArea.revalidate();
-                drawingArea.repaint();
+                // zoom out by factor of 2, centered at the click
+                zoomTo(barPixelsPerNS/2, x, drawingArea.getWidth()/2);
                 return 1;
         }
 
@@ -944,6 +1458,39 @@ public class VisTool extends JPanel {
         return 0;
     }
 
+    /* Zooms by a factor, keeping the time under x of the drawing
+       area where it is.  It is zoomed in up to MAX_PIXELS_PER_NS,
+       and out until the whole window fits the view.  Until the
+       tiles at the new zoom are painted the view shows the ones
+       of the last zoom scaled. */
+    public void zoomAt(double f, int x) {
+        if (displayContent == INTRO)
+            return;
+        double zoom = getTileZoom();
+        double fit = drawingArea.getWidth()/(timingEndTime-timingStartTime);
+        double z = Math.max(Math.min(zoom, fit),
+                Math.min(zoom*f, Math.max(zoom, MAX_PIXELS_PER_NS)));
+        if (z == zoom)
+            return;
+        zoomTo(z, x, x);
+    }
+
+    /* Changes the zoom of the view shown to z, and moves the time
+       that was under x of the drawing area to to */
+    private void zoomTo(double z, int x, int to) {
+        // the point under x, from the left of the diagram, at the
+        // new zoom
+        long zero = getZeroX();
+        double p = zero+(viewX+x-zero)*(z/getTileZoom());
+        if (displayContent == STATS_GRAPH)
+            barPixelsPerNS = z;
+        else
+            pixelsPerNanoSecond = z;
+        moveView(Math.round(p)-to);
+        lastScrollX = viewX;
+        drawingArea.repaint();
+    }
+
     /* This function creates a frame and inserts a DisplayDialog object
        which allows the user to select what is displayed on the screen */
 
@@ -978,9 +1525,7 @@ public class VisTool extends JPanel {
         repaintDrawingArea();
 
         // recenter view to the beginning in case it has been moved
-        Point p = scroller.getViewport().getViewPosition();
-        p.setLocation(0,(int)p.getY());
-        scroller.getViewport().setViewPosition(p);
+        moveView(0);
 
     }
 
@@ -1009,6 +1554,66 @@ public class VisTool extends JPanel {
     }
 
 
+    /* This function creates a frame and inserts a
+       TransactionDialog object which allows the user to
+       jump to a transaction by its ID */
+    public void openTransactionDialog() {
+        JFrame frame =
+                new JFrame("Go to Transaction");
+        frame.getContentPane().setLayout(new GridLayout(1,1));
+        frame.setLocation(150,150);
+
+        // instantiate the dialog
+        TransactionDialog transDialog =
+                new TransactionDialog(frame, this);
+        // add it into the frame
+        frame.getContentPane().add(transDialog);
+
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.pack();
+        frame.setVisible(true);
+    }
+
+    /* This function creates a frame and inserts an
+       ErrorLimitDialog object which allows the user to
+       set how many bad lines a load may find */
+    public void openErrorLimitDialog() {
+        JFrame frame =
+                new JFrame("Input Error Limit");
+        frame.getContentPane().setLayout(new GridLayout(1,1));
+        frame.setLocation(150,150);
+
+        // instantiate the dialog
+        ErrorLimitDialog limitDialog =
+                new ErrorLimitDialog(frame, this);
+        // add it into the frame
+        frame.getContentPane().add(limitDialog);
+
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.pack();
+        frame.setVisible(true);
+    }
+
+    /* This function creates a frame and inserts an
+       ErrorReportDialog object which shows the lines of
+       a file that could not be decoded */
+    public void openErrorReport(String fileName, ErrorReport report) {
+        JFrame frame =
+                new JFrame("Input Errors");
+        frame.getContentPane().setLayout(new GridLayout(1,1));
+        frame.setLocation(150,150);
+
+        // instantiate the dialog
+        ErrorReportDialog reportDialog =
+                new ErrorReportDialog(frame, "Errors in "+fileName, report);
+        // add it into the frame
+        frame.getContentPane().add(reportDialog);
+
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.pack();
+        frame.setVisible(true);
+    }
+
     /* This function creates a frame and inserts a
        DRAMParametersDialog object which allows the user
        to specify the various DRAM parameters */
@@ -1059,10 +1664,9 @@ public class VisTool extends JPanel {
 //
 //
 
-    /* find the center of the viewable screen */
+    /* find the center of the viewable screen, in the drawing area */
     public int getCenterX() {
-        Point p = scroller.getViewport().getViewPosition();
-        return (int)p.getX()+getWidth()/2;
+        return drawingArea.getWidth()/2;
     }
 
     /* find the center of the viewable screen */
@@ -1071,52 +1675,78 @@ public class VisTool extends JPanel {
         return (int)p.getY()+getHeight()/2;
     }
 
-    /* centers the viewable screen around x (not y currently) */
+    /* centers the viewable screen around x of the drawing area
+       (not y currently) */
     public void centerDisplay(int x, int y) {
-        Point p = scroller.getViewport().getViewPosition();
-        int currentX = (int)p.getX();
-        int newX = x - getWidth()/2;
-        if (newX < 0) newX = 0;
-        if (newX >= size.width) newX=size.width-1;
-        p.setLocation(newX,(int)p.getY());
-        scroller.getViewport().setViewPosition(p);
+        setViewX(viewX+x-drawingArea.getWidth()/2);
     }
 
-    /* this function repaints the drawing area based on the
-       display mode selected by the user. */
+    /* scrolls the view to start x pixels from the left of the
+       diagram, as far as it goes, and fetches the tiles ahead */
+    public void setViewX(long x) {
+        moveView(x);
+        prefetchTiles();
+    }
 
-    public void repaintDrawingArea() {
-        int w = busLabelArea.getPreferredSize().width;
-        double t = timingEndTime-timingStartTime;
+    // left of the view, in pixels from the left of the diagram
+    public long getViewX() {
+        return viewX;
+    }
 
+    /* moves the view to start x pixels from the left of the
+       diagram, as far as it goes, and sets hScroll to match */
+    private void moveView(long x) {
+        long old = viewX;
+        long w = getContentWidth();
+        int view = drawingArea.getWidth();
+        viewX = Math.max(0, Math.min(x, w-view));
+
+        // hScroll counts in units of scrollUnit pixels, so that
+        // the widest diagram fits in an int
+        scrollUnit = Math.max(1, (w+MAX_SCROLL_UNITS-1)/MAX_SCROLL_UNITS);
+        if (!settingScroll) {
+            settingScroll = true;
+            int extent = (int)((view+scrollUnit-1)/scrollUnit);
+            hScroll.setValues((int)(viewX/scrollUnit), extent, 0,
+                    (int)((w+scrollUnit-1)/scrollUnit));
+            hScroll.setUnitIncrement(
+                    (int)Math.max(1, SCROLL_PIXELS/scrollUnit));
+            hScroll.setBlockIncrement(Math.max(1, extent));
+            settingScroll = false;
+        }
+        if (hScroll.isVisible() != w > view)
+            hScroll.setVisible(w > view);
+        if (viewX != old)
+            drawingArea.repaint();
+    }
+
+    /* the width of what is shown in pixels, from the left of the
+       diagram or stats graph to the end of the window */
+    private long getContentWidth() {
+        double t = timingEndTime-timingStartTime;
         switch (displayContent) {
             case STATS_GRAPH:
-                // set the scroller size to match the time scale
-                size.width = (int)(t*barPixelsPerNS);
-
-                // revaildate the drawing area
-                drawingArea.setPreferredSize(size);
-                drawingArea.revalidate();
-                drawingArea.repaint();
-                break;
+                return (long)(t*barPixelsPerNS);
             case TIMING_DIAG:
             case TIMING_DIAG_EXP_BANK:
             case TIMING_DIAG_EXP_UTIL:
             case TIMING_DIAG_EXP_ALL:
-                // determine the viewable area
-                size.width = (int)(t*pixelsPerNanoSecond);
-                drawingArea.setPreferredSize(size);
-                drawingArea.revalidate();
-                drawingArea.repaint();
-                break;
-            case INTRO:
-                drawingArea.repaint();
-                break;
+                return (long)(t*pixelsPerNanoSecond);
             default:
-                drawingArea.repaint();
-                System.out.println("Error in repaintDrawingArea");
-                break;
+                return 0;
         }
+    }
+
+    /* this function repaints the drawing area based on the
+       display mode selected by the user.  What is shown may have
+       changed, so the timing diagram is painted again in full. */
+
+    public void repaintDrawingArea() {
+        tilePainter.invalidate();
+
+        // the width of the view may have changed with it
+        moveView(viewX);
+        drawingArea.repaint();
         busLabelArea.repaint();
     }
 
@@ -1173,6 +1803,73 @@ public class VisTool extends JPanel {
         return timingEndTime;
     }
 
+    // is the block on the channel being shown?
+    private boolean inView(TimeBlock b) {
+        return viewChannel < 0 || b.getChannel() == viewChannel;
+    }
+
+    // shows a single channel, or all of them for -1
+    public void setViewChannel(int c) {
+        viewChannel = c;
+        recreateStatsVector();
+        repaintDrawingArea();
+    }
+
+    public int getViewChannel() {
+        return viewChannel;
+    }
+
+    // sets the number of channels loaded and shows all of them
+    public void setNumChannels(int n) {
+        numChannels = n;
+        viewChannel = -1;
+        rebuildChannelMenu();
+    }
+
+    public int getNumChannels() {
+        return numChannels;
+    }
+
+    public void setChannelMenu(JMenu m) {
+        channelMenu = m;
+        rebuildChannelMenu();
+    }
+
+    /* fills the channel menu with "All channels" and one
+       entry per channel that was loaded */
+    private void rebuildChannelMenu() {
+        if (channelMenu == null)
+            return;
+        channelMenu.removeAll();
+        ButtonGroup group = new ButtonGroup();
+        for (int c=-1;c<numChannels;c++) {
+            final int channel = c;
+            JRadioButtonMenuItem item = new JRadioButtonMenuItem(
+                    c < 0 ? "All channels" : "Channel "+c,
+                    c == viewChannel);
+            item.addActionListener(
+                    new ActionListener() {
+                public void actionPerformed(ActionEvent e) {
+                    setViewChannel(channel);
+                }
+            }
+            );
+            group.add(item);
+            channelMenu.add(item);
+        }
+        channelMenu.setEnabled(numChannels > 1);
+    }
+
+    // sets how many bad lines a load may find (-1: no limit)
+    public void setMaxInputErrors(int n) {
+        maxInputErrors = n;
+    }
+
+    // returns the error limit of loads
+    public int getMaxInputErrors() {
+        return maxInputErrors;
+    }
+
 //
 //
 // simple functions to return values
@@ -1365,6 +2062,9 @@ public class VisTool extends JPanel {
         tRPclocks = (int)(Math.ceil(tRP/clockPeriod));
         // Refresh time (Lecture 6, slide 8)
         refreshClocks = Math.max(tRASclocks+tRPclocks,tRCclocks);
+
+        // the blocks move to it in retimeBlocks()
+        blockTiming = createBlockTiming();
     }
 
     /* This function sets the option selected by the
@@ -1374,438 +2074,277 @@ public class VisTool extends JPanel {
         repaintDrawingArea();
     }
 
-    /* This function assigns colors to the various command types */
-    public Color getCommandColor(int command) {
-        switch (command) {
-            case ROWACT:
-                return Color.red;
-            case READ:
-                return Color.blue;
-            case WRITE:
-                return Color.green;
-            case PRECHARGE:
-                return Color.magenta;
-            case REFRESH:
-                return Color.orange;
-            case BANKCONFLICT:
-                return Color.cyan;
-            /*
-        case ROWCONFLICT:
-            return Color.yellow;
-             */
-            case TFAWCONFLICT:
-                return Color.pink;
-            default:
-                return Color.black;
-        }
+    /* This function returns the color of a command type, the
+       colors are kept in the BlockKind table */
+    public static Color getCommandColor(int command) {
+        return BlockKind.getCommandColor(command);
     }
 
     /* This function will draw a block of time for Timing Diagram mode.
        It takes into account time (width), color, and bus */
-    public void drawTimeBlock(Graphics g, TimeBlock temp) {
-        int c = (int)(pixelsPerNanoSecond*clockPeriod);
+    public void drawTimeBlock(Graphics g, TimeBlock temp, DiagramPaint p) {
+        PaintView v = p.view;
 
-        fontSize = g.getFont().getSize();
-        double t = temp.getStartTime()-timingStartTime;
-        int type = temp.getType();
+        int fontSize = g.getFont().getSize();
+        BlockKind kind = temp.getKind();
 
         // determine where to put timeblocks
         int x_coord = 0;
         int y_coord = 0;
 
         // calculate the width of the block in pixels
-        int w = (int)((temp.getEndTime()-temp.getStartTime())
-        *pixelsPerNanoSecond)-1;
-        g.setColor(temp.getColor());
+        int w = v.blockWidth(temp.getStartTime(), temp.getEndTime(), p.origin);
+        g.setColor(kind.getColor());
 
         // determine x and y coordinates
-        switch (displayContent) {
-            case TIMING_DIAG:
-                x_coord = colSpacing+(int)(pixelsPerNanoSecond*t);
-                y_coord = temp.getBusID()*(rowHeight+rowSpacing)+rowSpacing;
-                break;
-
-            case TIMING_DIAG_EXP_BANK:
-                x_coord = colSpacing+(int)(pixelsPerNanoSecond*t);
-                switch (temp.getBusID()) {
-                    case CMD_BUS:
-                        y_coord = temp.getBusID()*
-                                (rowHeight+rowSpacing)+rowSpacing;
-                        break;
-                    case BANK_UTIL:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                (temp.getRank()*num_rank + temp.getBank())
-                                *(rowHeight+rowSpacing) + rowSpacing;
-                        break;
-                    default:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                (num_rank*num_bank-1)* (rowHeight+rowSpacing) +
-                                rowSpacing;
-                        break;
-                }
-                break;
-
-            case TIMING_DIAG_EXP_UTIL:
-                x_coord = colSpacing+(int)(pixelsPerNanoSecond*t);
-                switch (temp.getBusID()) {
-                    case CMD_BUS:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                rowSpacing;
-                        break;
-                    case BANK_UTIL:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                rowSpacing;
-                        break;
-                    case DEV_UTIL:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                (int) (temp.getRank())*(rowHeight+rowSpacing) +
-                                rowSpacing;
-                        break;
-                    default:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                (int) (num_rank-1)*(rowHeight+rowSpacing) +
-                                rowSpacing;
-                        break;
-                }
-                break;
-
-            case TIMING_DIAG_EXP_ALL:
-                x_coord = colSpacing+(int)(pixelsPerNanoSecond*t);
-                switch (temp.getBusID()) {
-                    case CMD_BUS:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                rowSpacing;
-                        break;
-                    case BANK_UTIL:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                (temp.getRank()*num_rank + temp.getBank())*
-                                (rowHeight+rowSpacing) + rowSpacing;
-                        break;
-                    case DEV_UTIL:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                (num_rank*num_bank-1+temp.getRank())*
-                                (rowHeight+rowSpacing) + rowSpacing;
-                        break;
-                    default:
-                        y_coord = temp.getBusID()*(rowHeight+rowSpacing) +
-                                (num_rank*num_bank+num_rank-2)*
-                                (rowHeight+rowSpacing) + rowSpacing;
-                        break;
-                }
-                break;
-            default:
-                System.out.println("Error in paintTimeBlock");
-                break;
+        x_coord = v.timeToX(temp.getStartTime(), p.origin);
+        y_coord = v.blockY(temp.getBusID(), temp.getRank(), temp.getBank());
+        if (y_coord < 0) {
+            p.error = "Error in paintTimeBlock";
+            return;
         }
 
         // determine if the size of the text will be larger than the box
-        if (temp.getStr().length()*fontSize < w) {
+        if (kind.getLabelWidth(fontSize) < w) {
             // the box is big enough, draw the text
             g.drawRect
                     (x_coord,
                     y_coord,
-                    w, rowHeight);
+                    w, v.rowHeight);
             g.setColor(Color.black);
             g.drawString
-                    (temp.getStr(),
+                    (kind.getLabel(),
                     x_coord + 5,
-                    y_coord + rowHeight/2);
+                    y_coord + v.rowHeight/2);
         } else {
             // the box is not big enough, fill solid
             g.fillRect(x_coord,
                     y_coord,
-                    w, rowHeight);
+                    w, v.rowHeight);
         }
 
         // Label the commands with the transaction ID
-        if (temp.isCommand()) {
-            switch (displayContent) {
-                case TIMING_DIAG:
-                    g.drawString(String.valueOf(temp.getID()),
-                            x_coord, TRANS_ID*(rowHeight+rowSpacing) +
-                            rowSpacing+fontSize);
-                    break;
-                case TIMING_DIAG_EXP_BANK:
-                    g.drawString(String.valueOf(temp.getID()),
-                            x_coord, (TRANS_ID+num_rank*num_bank-1)*
-                            (rowHeight+rowSpacing)+rowSpacing+fontSize);
-                    break;
-                case TIMING_DIAG_EXP_UTIL:
-                    g.drawString(String.valueOf(temp.getID()),
-                            x_coord, (TRANS_ID+num_rank-1)*
-                            (rowHeight+rowSpacing)+rowSpacing+fontSize);
-                    break;
-                case TIMING_DIAG_EXP_ALL:
-                    g.drawString(String.valueOf(temp.getID()),
-                            x_coord, (TRANS_ID+num_rank*num_bank+num_rank-1)*
-                            (rowHeight+rowSpacing)+rowSpacing+fontSize);
-                    break;
-                default:
-                    break;
-            }
+        if (kind.getType() != NONE) {
+            int y = v.transIDBaseline(fontSize);
+            if (y >= 0)
+                drawInt(g, p.digits, temp.getID(), x_coord, y);
         }
-
-        // What is this for??? I think this should be deleted
-        //size.width = (int)(temp.getEndTime()*pixelsPerNanoSecond)+colSpacing;
-        //drawingArea.setPreferredSize(size);
-
-        drawingArea.revalidate();
-
     }
 
-    /* Creates a new TimeBlock vector based on the new start and end times */
-    public void recreateTimeBlocks() {
+    // x kept within MAX_COORD of a picture, so it can be drawn
+    private static int clampX(long x) {
+        return (int)Math.max(-MAX_COORD, Math.min(x, MAX_COORD));
+    }
 
-        /* This doubles the memory requirement
-           May need to fix this! */
+    /* draws an int like drawString, without making a String, using
+       digits to write it */
+    private void drawInt(Graphics g, char[] digits, int v, int x, int y) {
+        int i = digits.length;
+        long n = Math.abs((long)v);
+        do {
+            digits[--i] = (char)('0'+n%10);
+            n = n/10;
+        } while (n > 0);
+        if (v < 0)
+            digits[--i] = '-';
+        g.drawChars(digits, i, digits.length-i, x, y);
+    }
 
-        Vector temp = (Vector)timeBlockVector.clone();
-        timeBlockVector.removeAllElements();
+    /* Moves the blocks to the current DRAM timing.  Every block of
+       a kind starts and ends the same time after its command, so
+       the store only needs the new BlockTiming. */
+    public void retimeBlocks() {
 
-        for (int p=0; p < temp.size(); p++) {
-            TimeBlock b = ((TimeBlock)temp.elementAt(p));
-            // Note: non-commands are ignored
-            if (b.getEndTime() > timingStartTime &&
-                    b.getStartTime() < timingEndTime) {
-                createTimeBlocks(b.getStartTime(),
-                        b.getType(),
-                        b.getID(),
-                        b.getRank(),
-                        b.getBank(),
-                        b.getRow(),
-                        b.getCol());
-            }
+        // neither the order by command time nor the lanes change,
+        // only how far the blocks of a lane reach
+        tilePainter.beginChange();
+        try {
+            timeBlocks.setTiming(blockTiming);
+            if (laneIndex != null)
+                laneIndex.retime();
+            // the window may take in other blocks now
+            if (windowLanes != null)
+                windowLanes.close();
+            windowLanes = null;
+        } finally {
+            tilePainter.endChange();
         }
     }
 
-    /* Creates the various time blocks based on the command type */
-    public void createTimeBlocks(double time, int type, int transID,
-            int rank, int bank, int row, int col) {
-        // Draw TimeBlocks
-        double t = time;
+    /* Works out when the blocks of each kind start and end after
+       their command under the current DRAM timing */
+    private BlockTiming createBlockTiming() {
+        BlockTiming b = new BlockTiming();
+        double t;
         double endTime;
-        double temp = 0.0;
-        Color c = getCommandColor(type);
-
-        // identify the command type
-        switch(type) {
-            case ROWACT:
-                // add row activation command block
-                endTime = t+tRCDclocks*clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "row act", CMD_BUS, c,
-                        t, t+clockPeriod, ROWACT,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // CMD delay of one clock period
-                t = t+clockPeriod;
-
-                // add data sense block on bank utilization bus
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "data sense", BANK_UTIL, c,
-                        t,t+tRCDclocks*clockPeriod,NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                //t = t+tRCDclocks*clockPeriod;
-                break;
-            case READ:
-                // Column Read
-                endTime = time+
-                        tCASclocks*clockPeriod+
-                        tBURSTclocks*clockPeriod;
-
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "col read", CMD_BUS, c,
-                        t,t+clockPeriod, READ,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // Add bank access block
-                t = t+clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "bank access", BANK_UTIL, c,
-                        t,t+(tCASclocks-1)*clockPeriod, NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // Add I/O Gating block
-                t = time+(tCASclocks)*clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "I/O gating", DEV_UTIL, c,
-                        t,t+tBURSTclocks*clockPeriod, NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // Add Data burst
-                //t = time+tCASclocks*clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "data burst", DATA_BUS, c,
-                        t,t+tBURSTclocks*clockPeriod, NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-                break;
-            case WRITE:
-                // Column Write
-                endTime = time+tCWDclocks*clockPeriod+
-                        clockPeriod+
-                        (tCWDclocks+tBURSTclocks-1)*clockPeriod+
-                        (1+tWRclocks)*clockPeriod;
-
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "col write", CMD_BUS, c,
-                        t,t+clockPeriod, WRITE,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // Add Data burst
-                t = t+tCWDclocks*clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "data burst", DATA_BUS, c,
-                        t,t+tBURSTclocks*clockPeriod, NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // Add I/O gating block
-                //t = t+clockPeriod;
-                t = time+(tCWDclocks+tBURSTclocks-1)*clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "I/O gating", DEV_UTIL, c,
-                        //t,t+tBURSTclocks*clockPeriod, NONE,
-                        t,t+(1+tWRclocks)*clockPeriod, NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // Add bank access block
-                t = time+(tCWDclocks+tBURSTclocks-1)*clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "bank access", BANK_UTIL, c,
-                        t,t+(1+tWRclocks)*clockPeriod, NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-                break;
-            case PRECHARGE:
-                // Pre-charge
-                endTime = time+clockPeriod+
-                        tRPclocks*clockPeriod;
-
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "precharge", CMD_BUS, c,
-                        t,t+clockPeriod, PRECHARGE,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // Add bank access block
-                t = t+clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "bank precharge", BANK_UTIL,c,
-                        t,t+tRPclocks*clockPeriod,NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-                break;
-            case REFRESH:
-                // refresh
-                endTime = time+clockPeriod+tRASclocks*clockPeriod
-                        +refreshClocks*clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "refresh", CMD_BUS, c,
-                        t,t+clockPeriod, REFRESH,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // Add bank access block
-                t = t+clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "row access (all banks)", BANK_UTIL,c,
-                        t,t+tRASclocks*clockPeriod,NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-
-                // Add bank access block
-                t = t+tRASclocks*clockPeriod;
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "precharge (all banks)", BANK_UTIL,c,
-                        t,t+refreshClocks*clockPeriod,NONE,
-                        rank,bank,row,col,
-                        time,endTime));
-                break;
-            case BANKCONFLICT:
-                // bank conflict on the "conflict bus"
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "bank conflict", CONFLICT, c,
-                        t,t+clockPeriod, BANKCONFLICT,
-                        rank,bank,row,col,
-                        time,time));
-                break;
-            /*
-        case ROWCONFLICT:
-            // refresh
-            timeBlockVector.addElement
-                (new TimeBlock(transID,
-                               "row conflict", CONFLICT, c,
-                               t,t+clockPeriod, ROWCONFLICT,
-                               rank,bank,row,col,
-                               time,time));
-            break;
-             */
-            case TFAWCONFLICT:
-                // refresh
-                timeBlockVector.addElement
-                        (new TimeBlock(transID,
-                        "Tfaw conflict", CONFLICT, c,
-                        t,t+clockPeriod, TFAWCONFLICT,
-                        rank,bank,row,col,
-                        time,time));
-                break;
-            default:
-                break;
+
+        // row activation command block
+        endTime = tRCDclocks*clockPeriod;
+        b.set(BlockKind.ROW_ACT, 0.0, clockPeriod, endTime);
+
+        // CMD delay of one clock period, then the data sense block
+        // on bank utilization bus
+        t = clockPeriod;
+        b.set(BlockKind.DATA_SENSE, t, t+tRCDclocks*clockPeriod, endTime);
+
+        // Column Read
+        endTime = tCASclocks*clockPeriod+
+                tBURSTclocks*clockPeriod;
+        b.set(BlockKind.COL_READ, 0.0, clockPeriod, endTime);
+
+        // bank access block
+        t = clockPeriod;
+        b.set(BlockKind.READ_BANK_ACCESS,
+                t, t+(tCASclocks-1)*clockPeriod, endTime);
+
+        // I/O Gating block and data burst
+        t = tCASclocks*clockPeriod;
+        b.set(BlockKind.READ_IO_GATING,
+                t, t+tBURSTclocks*clockPeriod, endTime);
+        b.set(BlockKind.READ_DATA_BURST,
+                t, t+tBURSTclocks*clockPeriod, endTime);
+
+        // Column Write
+        endTime = tCWDclocks*clockPeriod+
+                clockPeriod+
+                (tCWDclocks+tBURSTclocks-1)*clockPeriod+
+                (1+tWRclocks)*clockPeriod;
+        b.set(BlockKind.COL_WRITE, 0.0, clockPeriod, endTime);
+
+        // data burst
+        t = tCWDclocks*clockPeriod;
+        b.set(BlockKind.WRITE_DATA_BURST,
+                t, t+tBURSTclocks*clockPeriod, endTime);
+
+        // I/O gating block and bank access block
+        t = (tCWDclocks+tBURSTclocks-1)*clockPeriod;
+        b.set(BlockKind.WRITE_IO_GATING,
+                t, t+(1+tWRclocks)*clockPeriod, endTime);
+        b.set(BlockKind.WRITE_BANK_ACCESS,
+                t, t+(1+tWRclocks)*clockPeriod, endTime);
+
+        // Pre-charge
+        endTime = clockPeriod+tRPclocks*clockPeriod;
+        b.set(BlockKind.PRECHARGE, 0.0, clockPeriod, endTime);
+
+        // bank access block
+        t = clockPeriod;
+        b.set(BlockKind.BANK_PRECHARGE,
+                t, t+tRPclocks*clockPeriod, endTime);
+
+        // refresh
+        endTime = clockPeriod+tRASclocks*clockPeriod
+                +refreshClocks*clockPeriod;
+        b.set(BlockKind.REFRESH, 0.0, clockPeriod, endTime);
+
+        // bank access blocks
+        t = clockPeriod;
+        b.set(BlockKind.ROW_ACCESS_ALL,
+                t, t+tRASclocks*clockPeriod, endTime);
+        t = t+tRASclocks*clockPeriod;
+        b.set(BlockKind.PRECHARGE_ALL,
+                t, t+refreshClocks*clockPeriod, endTime);
+
+        // conflicts on the "conflict bus"
+        b.set(BlockKind.BANK_CONFLICT, 0.0, clockPeriod, 0.0);
+        b.set(BlockKind.TFAW_CONFLICT, 0.0, clockPeriod, 0.0);
+        return b;
+    }
+
+    /* Puts the blocks of the command in entry p of from into to,
+       deriving them from the DRAM timing */
+    void deriveBlocks(BlockSource from, long p, BlockStore to) {
+        to.clear();
+        to.setTiming(from.getTiming());
+        to.addCommand(from.getTransactionStartTime(p),
+                from.getType(p),
+                from.getID(p),
+                from.getRank(p),
+                from.getBank(p),
+                from.getRow(p),
+                from.getCol(p));
+        to.setChannel(0, from.getChannel(p));
+    }
+
+    /* Returns the blocks kept with only the commands, or not, in
+       a store that can be added to, converting them if they are
+       kept the other way.  Reads nothing of the VisTool, an
+       IndexWorker calls it. */
+    BlockStore convertBlocks(BlockSource blocks, boolean derive) {
+        // a binary trace is drawn from its records either way
+        if (blocks.isCommandsOnly() == derive ||
+                blocks.isCommandsOnlyAlways())
+            return blocks.writable();
+
+        BlockStore s = blocks.newStore(blocks.size());
+        s.setCommandsOnly(derive);
+        for (long p=0;p<blocks.size();p++) {
+            // Note: non-commands are ignored
+            long first = s.size();
+            s.addCommand(blocks.getTransactionStartTime(p),
+                    blocks.getType(p),
+                    blocks.getID(p),
+                    blocks.getRank(p),
+                    blocks.getBank(p),
+                    blocks.getRow(p),
+                    blocks.getCol(p));
+            s.setChannel(first, blocks.getChannel(p));
         }
+        return s;
     }
 
     /* Searches the TimeBlock vector and counts the number of
        commands per minor tick. */
     public void collectStats() {
-        double t = timingStartTime;
-        TimeBlock b;
+        collectStats(0);
+    }
+
+    /* Counts the commands of the blocks from index first on */
+    public void collectStats(long first) {
+        collectStats(timeBlocks, first);
+    }
+
+    /* Counts the commands of the blocks of s from index first on,
+       s is timeBlocks or blocks in order that were just added to
+       it.  The stats graph may be painted meanwhile, so the counts
+       only change between beginChange() and endChange(). */
+    public void collectStats(BlockSource s, long first) {
+        tilePainter.beginChange();
+        try {
+            countStats(s, first);
+        } finally {
+            tilePainter.endChange();
+        }
+    }
+
+    private void countStats(BlockSource s, long first) {
+        TimeBlock b = new TimeBlock(s);
         int l, v, q;
 
-        for (int p=0;p<timeBlockVector.size();p++) {
+        // only the commands that start in the window are counted
+        long end = s.firstAtOrAfter(timingEndTime);
+        first = Math.max(first, s.firstAtOrAfter(timingStartTime));
+        for (long p=first;p<end;p++) {
             // retreive the TimeBlock
-            b = (TimeBlock)
-            timeBlockVector.elementAt(p);
+            b.moveTo(p);
             // check to make sure it is a valid block and a command
             if (b.getStartTime() > timingStartTime &&
                     b.getStartTime() < timingEndTime &&
-                    b.getType() != NONE) {
+                    b.getType() != NONE && inView(b)) {
 
-                // determine which tick the command fits into
-                l = (int)Math.floor(b.getStartTime()/barXMinorTick);
+                // determine which tick of the window the command
+                // fits into, the bars start at the start time
+                l = (int)Math.floor((b.getStartTime()-timingStartTime)/
+                        barXMinorTick);
 
                 // determine what bar the command fits
                 q = l*NUM_COMMANDS+b.getType()-1;
 
                 // retrieve the old value (height) of the bar and increment
-                v = ((Integer)statsVector.elementAt(q)).intValue()+1;
+                v = statsVector.elementAt(q).intValue()+1;
 
                 // place the new value into the vector
-                statsVector.setElementAt(new Integer(v),q);
+                statsVector.setElementAt(Integer.valueOf(v),q);
             }
         }
 
@@ -1817,31 +2356,49 @@ public class VisTool extends JPanel {
 
     // determine the number of major ticks
     public int getNumXMajorTicks() {
-        double t = timingEndTime-timingStartTime;
-        return (int)Math.ceil(t/barXMajorTick);
+        return getView().getNumXMajorTicks();
     }
 
     // determine the number of minor ticks
     public int getNumXMinorTicks() {
-        double t = timingEndTime-timingStartTime;
-        return (int)Math.ceil((getNumXMajorTicks()
-        *barXMajorTick)/barXMinorTick);
+        return getView().getNumXMinorTicks();
     }
     /***************************/
 
     // zeros the vector and recollect the stats
     public void recreateStatsVector() {
-        double t = timingEndTime-timingStartTime;
-        statsVector.removeAllElements();
-        statsVector.ensureCapacity(NUM_COMMANDS*
-                getNumXMinorTicks());
+        tilePainter.beginChange();
+        try {
+            statsVector.removeAllElements();
+            statsVector.ensureCapacity(NUM_COMMANDS*
+                    getNumXMinorTicks());
 
-        for (int i=0;i<NUM_COMMANDS*getNumXMinorTicks();i++) {
-            statsVector.add(i,new Integer(0));
+            for (int i=0;i<NUM_COMMANDS*getNumXMinorTicks();i++) {
+                statsVector.add(i,Integer.valueOf(0));
+            }
+
+            countStats(timeBlocks, 0);
+        } finally {
+            tilePainter.endChange();
         }
+    }
 
-        collectStats();
+    // adds empty bars up to the current end time
+    public void extendStatsVector() {
+        tilePainter.beginChange();
+        try {
+            growStatsVector();
+        } finally {
+            tilePainter.endChange();
+        }
+    }
 
+    private void growStatsVector() {
+        int n = NUM_COMMANDS*getNumXMinorTicks();
+        statsVector.ensureCapacity(n);
+        for (int i=statsVector.size();i<n;i++) {
+            statsVector.add(i,Integer.valueOf(0));
+        }
     }
 
     // test function
@@ -1851,8 +2408,7 @@ public class VisTool extends JPanel {
                 displayInfoMessage
                         ("Stats Vector",
                         "element("+(i*NUM_COMMANDS+j)+")="+
-                        ((Integer)statsVector.
-                        elementAt(i*NUM_COMMANDS+j)));
+                        statsVector.elementAt(i*NUM_COMMANDS+j));
             }
         }
     }
@@ -1878,7 +2434,7 @@ public class VisTool extends JPanel {
     // displays the text as start-up
     public void paintIntroPanel(Graphics g) {
 
-        g.setFont(new Font("Arial", Font.PLAIN, 20));
+        g.setFont(TITLE_FONT);
         fontSize = g.getFont().getSize();
         int textX = 10;
         int textY = 10+fontSize;
@@ -1887,7 +2443,7 @@ public class VisTool extends JPanel {
                 textX,textY);
         textY = textY+fontSize;
 
-        g.setFont(new Font("Arial", Font.PLAIN, 12));
+        g.setFont(TEXT_FONT);
         fontSize = g.getFont().getSize();
 
         g.drawString("File",
@@ -1896,7 +2452,18 @@ public class VisTool extends JPanel {
 
         g.drawString(" - Input data:  loads input data"+
                 " from the specified start time"+
-                " to the end time from a file.", textX,textY);
+                " to the end time from a file, or from"+
+                " several files, one per channel.", textX,textY);
+        textY=textY+fontSize;
+
+        g.drawString(" - Follow data file:  loads input data and keeps adding"+
+                " the commands the simulator appends to the file.",
+                textX,textY);
+        textY=textY+fontSize;
+
+        g.drawString(" - Convert data file to binary:  writes a data file"+
+                " in a binary form that loads much faster.",
+                textX,textY);
         textY=textY+fontSize;
 
         g.drawString(" - Load DRAM parameters:  loads paramaters of DRAM"+
@@ -1919,7 +2486,7 @@ public class VisTool extends JPanel {
         textY=textY+fontSize;
 
         g.drawString(" - Start Time/End Time:  Specify the time the"+
-                " data should be collected/displayed.",
+                " data should be displayed.  The whole file stays loaded.",
                 textX,textY);
         textY=textY+fontSize;
 
@@ -1931,6 +2498,23 @@ public class VisTool extends JPanel {
         g.drawString(" - Bar Graph Parameters:  Specify the"+
                 " bar graph settings.",
                 textX,textY);
+        textY=textY+fontSize;
+
+        g.drawString(" - Input Error Limit:  Specify how many bad lines"+
+                " a data file may have before loading it stops.",
+                textX,textY);
+        textY=textY+fontSize;
+
+        g.drawString(" - Always Keep Blocks Off Heap:  Keep the loaded"+
+                " blocks in a temporary file even for small traces."+
+                "  Traces too large for memory always are.",
+                textX,textY);
+        textY=textY+fontSize;
+
+        g.drawString(" - Derive Blocks When Drawn:  Keep only the commands"+
+                " and work out their blocks while drawing, which takes"+
+                " a third of the memory.",
+                textX,textY);
         textY=textY+2*fontSize;
 
         g.drawString("View",
@@ -1948,6 +2532,11 @@ public class VisTool extends JPanel {
 
         g.drawString(" - Zoom Out:  Zoom out display by a factor of 2.",
                 textX,textY);
+        textY=textY+fontSize;
+
+        g.drawString(" - Channel:  show the timing diagram and stats of"+
+                " one channel, or of all channels.",
+                textX,textY);
         textY=textY+2*fontSize;
 
         g.drawString("Help",
@@ -1968,75 +2557,471 @@ public class VisTool extends JPanel {
 
     }
 
-    /* Draw the graphics for the timing diagrams */
+    /* Draw the graphics for the timing diagrams.  The diagram is
+       copied from its tiles, and the selected transaction outlined
+       on top, so selecting one does not change the tiles. */
     public void paintTimingDiagram(Graphics g) {
-        g.setFont(new Font("Arial", Font.PLAIN, 10));
-        fontSize = g.getFont().getSize();
+        copyTiles(g);
+        paintSelectedTransaction(g);
+    }
 
-        double t = timingStartTime;
+    /* Copies the tiles of the view in the clip of g that are done
+       from the TileCache, and has the TilePainter paint the others.
+       A tile that is not done yet is shown in PENDING_COLOR.  The
+       tiles are numbered from the left of the diagram, the view
+       starts viewX pixels into it. */
+    private void copyTiles(Graphics g) {
+        clipRect.setBounds(0, 0, drawingArea.getWidth(),
+                drawingArea.getHeight());
+        Rectangle clip = g.getClipBounds(clipRect);
+        int height = Math.max(drawingArea.getHeight(), 1);
+        int w = TileCache.TILE_WIDTH;
+        long first = (viewX+Math.max(clip.x, 0))/w;
+        long last = (viewX+Math.min(clip.x+clip.width,
+                drawingArea.getWidth())+w-1)/w;
+
+        // getRenderingHints() makes a copy, so it is only taken once
+        if (tileHints == null)
+            tileHints = ((Graphics2D)g).getRenderingHints();
+        requestTiles(first, last);
+        boolean done = true;
+        for (long x=first; x < last; x++) {
+            BufferedImage im = tiles.get(getTileZoom(), displayContent,
+                    x, height);
+            int left = (int)(x*w-viewX);
+            if (im != null) {
+                g.drawImage(im, left, 0, null);
+            } else {
+                g.setColor(PENDING_COLOR);
+                g.fillRect(left, clip.y, w, clip.height);
+                drawPreview(g, left, w, height);
+                done = false;
+            }
+        }
+        if (done) {
+            previewZoom = getTileZoom();
+            previewContent = displayContent;
+        }
+    }
+
+    /* Draws the tiles kept at previewZoom that cover the part of
+       the view from left, width wide, scaled to the zoom shown.
+       The TilePainter only keeps the tiles of the view they were
+       painted for, so these were all painted at previewZoom. */
+    private void drawPreview(Graphics g, int left, int width,
+            int height) {
+        double zoom = getTileZoom();
+        if (previewContent != displayContent || previewZoom == zoom)
+            return;
 
-        // paint the TimeBlocks in the timeBlockVector
-        for (int p=0; p < timeBlockVector.size(); p++) {
-            TimeBlock b = ((TimeBlock)
-            timeBlockVector.elementAt(p));
-            if (b.getEndTime() > timingStartTime &&
-                    b.getStartTime() < timingEndTime) {
+        // the part from left at previewZoom, from the left of the
+        // diagram
+        int w = TileCache.TILE_WIDTH;
+        long zero = getZeroX();
+        double s = previewZoom/zoom;
+        double p0 = zero+(viewX+left-zero)*s;
+        double p1 = zero+(viewX+left+width-zero)*s;
+        long first = (long)Math.max(0, Math.floor(p0/w));
+        long last = (long)Math.ceil(p1/w);
+
+        Shape c = g.getClip();
+        g.clipRect(left, 0, width, height);
+        for (long k=first; k < last; k++) {
+            BufferedImage im = tiles.get(previewZoom, displayContent,
+                    k, height);
+            if (im == null)
+                continue;
+            previewTransform.setToTranslation(
+                    zero+(k*w-zero)/s-viewX, 0);
+            previewTransform.scale(1/s, 1);
+            ((Graphics2D)g).drawImage(im, previewTransform, null);
+        }
+        g.setClip(c);
+    }
 
-                drawTimeBlock(g,(TimeBlock)
-                timeBlockVector.elementAt(p));
+    /* has the tiles from up to to of the view painted, the ones
+       that are not kept or being painted already */
+    private void requestTiles(long from, long to) {
+        if (tileHints == null || from >= to)
+            return;
+        tilePainter.request(getView(), from, to,
+                Math.max(drawingArea.getHeight(), 1), tileHints);
+    }
+
+    /* Starts painting the tiles ahead of the view while it is
+       scrolled, a view wide in the way it moves */
+    private void prefetchTiles() {
+        long dx = viewX-lastScrollX;
+        lastScrollX = viewX;
+        if (dx == 0 || displayContent == INTRO)
+            return;
+        int view = drawingArea.getWidth();
+        long from = dx > 0 ? viewX+view : viewX-view;
+        long to = Math.min(from+view, getContentWidth());
+        int w = TileCache.TILE_WIDTH;
+        requestTiles(Math.max(from, 0)/w, (to+w-1)/w);
+    }
+
+    /* Called by the TilePainter once tiles from up to to are kept,
+       repaints where they go if they are of what is shown */
+    void tilesPainted(double zoom, int content, long from, long to) {
+        if (content != displayContent || zoom != getTileZoom())
+            return;
+        int w = TileCache.TILE_WIDTH;
+        long left = Math.max(from*w-viewX, 0);
+        long right = Math.min(to*w-viewX, drawingArea.getWidth());
+        if (left < right)
+            drawingArea.repaint((int)left, 0, (int)(right-left),
+                    drawingArea.getHeight());
+    }
+
+    /* Paints the tiles of a PaintTask into images of their own,
+       with the rendering hints of the drawing area.  This runs on
+       the pool of the TilePainter while the blocks and lanes do not
+       change; returns null if the tiles are not wanted any more. */
+    BufferedImage[] paintTiles(TilePainter.PaintTask t) {
+        int w = TileCache.TILE_WIDTH;
+        int height = t.getHeight();
+        int n = (int)(t.getTo()-t.getFrom());
+        // the strip starts origin pixels from the left of the diagram
+        long origin = t.getFrom()*w;
+
+        BufferedImage strip = new BufferedImage(n*w, height,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D s = strip.createGraphics();
+        s.setRenderingHints(t.getHints());
+        s.setColor(t.getView().background);
+        s.fillRect(0, 0, n*w, height);
+        s.clipRect(0, 0, n*w, height);
+        if (t.getContent() == STATS_GRAPH) {
+            paintStatsGraph(s, t.getView(), origin);
+        } else {
+            DiagramPaint dp = new DiagramPaint(t.getView(), t, origin);
+            paintDiagramBlocks(s, dp);
+            if (dp.error != null)
+                paintError(dp.error);
+        }
+        s.dispose();
+        if (t.isCancelled())
+            return null;
+
+        // each tile gets its own copy, so dropping one frees it
+        BufferedImage[] im = new BufferedImage[n];
+        for (int i=0; i < n; i++) {
+            im[i] = new BufferedImage(w, height, BufferedImage.TYPE_INT_RGB);
+            Graphics c = im[i].getGraphics();
+            c.drawImage(strip, -i*w, 0, null);
+            c.dispose();
+        }
+        return im;
+    }
+
+    /* Called by the TilePainter when painting tiles from up to to
+       failed.  The error is shown once, and the tiles are asked
+       for again after a while, if they are still shown then. */
+    void tilesFailed(final double zoom, final int content,
+            final long from, final long to, RuntimeException e) {
+        paintError("Error painting the diagram: "+e);
+        javax.swing.Timer retry = new javax.swing.Timer(
+                PAINT_RETRY_MILLIS, new ActionListener() {
+            public void actionPerformed(ActionEvent a) {
+                tilesPainted(zoom, content, from, to);
             }
+        });
+        retry.setRepeats(false);
+        retry.start();
+    }
+
+    /* Shows an error found while painting tiles on the pool, once */
+    private void paintError(final String message) {
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                if (paintErrorShown)
+                    return;
+                paintErrorShown = true;
+                displayErrorMessage("Paint Error", message);
+            }
+        });
+    }
+
+    // x where the window starts, from the left of the diagram
+    private long getZeroX() {
+        if (displayContent == STATS_GRAPH)
+            return STATS_X_OFFSET;
+        return colSpacing;
+    }
+
+    // the zoom the tiles of the view are kept by
+    private double getTileZoom() {
+        return getView().getZoom();
+    }
+
+    /* The view as it is now, copied again once it changed.  The
+       copy it replaces is no longer current. */
+    PaintView getView() {
+        if (paintView == null || !paintView.matches()) {
+            if (paintView != null)
+                paintView.current = false;
+            paintView = new PaintView();
         }
+        return paintView;
+    }
 
-        // Draw Clock
+    /* Draws the blocks, clock and axis of the timing diagram that
+       are in the clip of g, stopping early if dp is cancelled.  g
+       is a picture of the diagram from dp.origin pixels on. */
+    private void paintDiagramBlocks(Graphics g, DiagramPaint dp) {
+        PaintView v = dp.view;
+        g.setFont(SMALL_FONT);
+        int fontSize = g.getFont().getSize();
+
+        // only the part of the window inside the clip is painted.
+        // A transaction ID may reach past the end of its block, so
+        // blocks a little left of the clip are painted as well.
+        double start = v.timingStartTime;
+        double end = v.timingEndTime;
+        // getClipBounds leaves the rectangle as is without a clip
+        dp.clip.setBounds(-(1<<30), -(1<<30),
+                Integer.MAX_VALUE, Integer.MAX_VALUE);
+        Rectangle clip = g.getClipBounds(dp.clip);
+        start = Math.max(start, v.xToTime(clip.x-LABEL_MARGIN, dp.origin));
+        end = Math.min(end, v.xToTime(clip.x+clip.width+1, dp.origin));
+        int clipTop = clip.y;
+        int clipBottom = clip.y+clip.height;
+        int idTop = v.transIDBaseline(fontSize)-fontSize;
+        int idBottom = v.transIDBaseline(fontSize)+fontSize;
+
+        // paint the TimeBlocks lane by lane, only visiting the
+        // lanes whose row is in the clip and the blocks of each
+        // lane that can reach into it
+        LaneIndex lanes = v.lanes;
+        for (int i=0; i < lanes.getNumLanes(); i++) {
+            if (dp.isCancelled())
+                return;
+            LaneIndex.Lane l = lanes.getLane(i);
+            int top = v.blockY(l.getBus(), l.getRank(), l.getBank());
+            // with room for the outline of a selected block
+            boolean visible = top+v.rowHeight+3 >= clipTop &&
+                    top-3 <= clipBottom;
+            if (l.getBus() == CMD_BUS || l.getBus() == CONFLICT)
+                visible = visible ||
+                        (idBottom >= clipTop && idTop <= clipBottom);
+            if (!visible)
+                continue;
+
+            long first = lanes.firstEndingAfter(l, start);
+            long last = lanes.firstAtOrAfter(l, end);
+
+            // with more blocks than pixels the lane is summed up
+            // per pixel column instead
+            int left = (int)Math.max(clip.x, v.colSpacing-dp.origin);
+            int right = (int)Math.max(left, Math.min(clip.x+clip.width,
+                    v.colSpacing-dp.origin+(long)Math.ceil(
+                    (v.timingEndTime-v.timingStartTime)*v.pixelsPerNanoSecond)));
+            if (last-first > (right-left)*LOD_BLOCKS_PER_PIXEL) {
+                paintLaneSummary(g, dp, l, first, last, left, right, top);
+                continue;
+            }
+
+            for (long q=first; q < last; q++) {
+                TimeBlock b = dp.cursor.getBlock(l, q);
+                if (b.getEndTime() > v.timingStartTime && v.inView(b)) {
+
+                    drawTimeBlock(g,b,dp);
+                }
+            }
+        }
+        if (dp.isCancelled())
+            return;
+
+        // Draw Clock, only the cycles in the clip
         g.setColor(Color.black);
-        t = timingEndTime-timingStartTime;
-        int c = (int)(pixelsPerNanoSecond*clockPeriod);
-
-        int p = 0;
-        double d = timingStartTime;
-        int clocks = 0;
-        while (d<timingEndTime) {
-            g.drawLine(colSpacing+p,rowSpacing,
-                    colSpacing+p,rowSpacing+rowHeight);
-            g.drawLine(colSpacing+p,rowSpacing,
-                    colSpacing+p+c/2, rowSpacing);
-            g.drawLine(colSpacing+p+c/2, rowSpacing,
-                    colSpacing+p+c/2, rowSpacing+rowHeight);
-            g.drawLine(colSpacing+p+c/2, rowSpacing+rowHeight,
-                    colSpacing+p+c, rowSpacing+rowHeight);
-            d = d+clockPeriod;
-            p = (int)(d*pixelsPerNanoSecond);
+        double cycle = v.pixelsPerNanoSecond*v.clockPeriod;
+        int c = (int)cycle;
+        if (cycle < MIN_CLOCK_PIXELS) {
+            // the cycles are too close to tell apart, the clock is
+            // a band over the window
+            int x0 = (int)Math.max(clip.x, v.colSpacing-dp.origin);
+            int x1 = (int)Math.max(x0, Math.min(clip.x+clip.width,
+                    v.colSpacing-dp.origin+(long)((v.timingEndTime-
+                    v.timingStartTime)*v.pixelsPerNanoSecond)));
+            g.setColor(CLOCK_BAND_COLOR);
+            g.fillRect(x0, v.rowSpacing, x1-x0, v.rowHeight+1);
+        } else {
+            // a cycle starts every v.clockPeriod from the window start
+            long n = (long)Math.ceil(
+                    (v.timingEndTime-v.timingStartTime)/v.clockPeriod);
+            double x = (double)dp.origin+clip.x-v.colSpacing;
+            long from = Math.max(0, (long)Math.floor(x/cycle)-1);
+            long to = Math.min(n,
+                    (long)Math.ceil((x+clip.width)/cycle)+1);
+            for (long k=from; k < to; k++) {
+                int p = (int)((long)(k*v.clockPeriod*v.pixelsPerNanoSecond)-
+                        dp.origin);
+                g.drawLine(v.colSpacing+p,v.rowSpacing,
+                        v.colSpacing+p,v.rowSpacing+v.rowHeight);
+                g.drawLine(v.colSpacing+p,v.rowSpacing,
+                        v.colSpacing+p+c/2, v.rowSpacing);
+                g.drawLine(v.colSpacing+p+c/2, v.rowSpacing,
+                        v.colSpacing+p+c/2, v.rowSpacing+v.rowHeight);
+                g.drawLine(v.colSpacing+p+c/2, v.rowSpacing+v.rowHeight,
+                        v.colSpacing+p+c, v.rowSpacing+v.rowHeight);
+            }
         }
 
         // draw the axis
-        switch (displayContent) {
+        switch (v.displayContent) {
             case TIMING_DIAG:
-                paintXAxis(g,colSpacing,(NUM_BUSSES+1)*
-                        (rowSpacing+rowHeight),true);
+                paintXAxis(g,v,v.colSpacing-dp.origin,(NUM_BUSSES+1)*
+                        (v.rowSpacing+v.rowHeight),true);
                 break;
             case TIMING_DIAG_EXP_BANK:
-                paintXAxis(g,colSpacing, (int)(NUM_BUSSES+num_bank*num_rank)*
-                        (rowSpacing+rowHeight),true);
+                paintXAxis(g,v,v.colSpacing-dp.origin,
+                        (int)(NUM_BUSSES+v.num_bank*v.num_rank)*
+                        (v.rowSpacing+v.rowHeight),true);
                 break;
             case TIMING_DIAG_EXP_UTIL:
-                paintXAxis(g,colSpacing,
-                        (int)(NUM_BUSSES+num_rank)*(rowSpacing+rowHeight),true);
+                paintXAxis(g,v,v.colSpacing-dp.origin,
+                        (int)(NUM_BUSSES+v.num_rank)*(v.rowSpacing+v.rowHeight),true);
                 break;
             case TIMING_DIAG_EXP_ALL:
-                paintXAxis(g,colSpacing, (int)(NUM_BUSSES+num_bank*
-                        num_rank+num_rank-1)*(rowSpacing+rowHeight),true);
+                paintXAxis(g,v,v.colSpacing-dp.origin,
+                        (int)(NUM_BUSSES+v.num_bank*v.num_rank+v.num_rank-1)*
+                        (v.rowSpacing+v.rowHeight),true);
                 break;
             default:
-                System.out.println("Error in paintTimeBlock");
+                dp.error = "Error in paintTimeBlock";
                 break;
         }
     }
 
+    /* Draws the blocks q of lane l, first <= q < last, as how much
+       of each pixel column from left to right they cover.  A
+       column is drawn in the color of the command covering most of
+       it, paler the less of it is covered.  The transaction IDs are
+       left out, there would be more of them than room. */
+    private void paintLaneSummary(Graphics g, DiagramPaint p,
+            LaneIndex.Lane l, long first, long last,
+            int left, int right, int top) {
+        PaintView v = p.view;
+        int n = right-left;
+        if (n <= 0)
+            return;
+        int k = NUM_COLORS;
+        if (p.coverage.length < n*k)
+            p.coverage = new double[n*k];
+        double[] coverage = p.coverage;
+        Arrays.fill(coverage, 0, n*k, 0.0);
+
+        // add up the part of each column each block covers, in
+        // pixels, with x where drawTimeBlock puts the block
+        for (long q=first; q < last; q++) {
+            // a dense lane takes a while, and holds up a change
+            if ((q-first)%LOD_CANCEL_BLOCKS == 0 && p.isCancelled())
+                return;
+            TimeBlock b = p.cursor.getBlock(l, q);
+            if (!v.inView(b))
+                continue;
+            double x0 = v.colSpacing+v.pixelsPerNanoSecond*
+                    (b.getStartTime()-v.timingStartTime)-p.origin;
+            double x1 = v.colSpacing+v.pixelsPerNanoSecond*
+                    (b.getEndTime()-v.timingStartTime)-p.origin;
+            x0 = Math.max(x0, left);
+            x1 = Math.min(x1, right);
+            int c = b.getKind().getCommand();
+            for (int x=(int)x0; x < x1; x++)
+                coverage[(x-left)*k+c] += Math.min(x1, x+1)-Math.max(x0, x);
+        }
+
+        // draw the runs of columns that come out the same
+        Color run = null;
+        int runStart = left;
+        for (int x=left; x <= right; x++) {
+            Color col = null;
+            if (x < right) {
+                int i = (x-left)*k;
+                int best = 0;
+                double sum = 0.0;
+                for (int c=0; c < k; c++) {
+                    sum += coverage[i+c];
+                    if (coverage[i+c] > coverage[i+best])
+                        best = c;
+                }
+                if (sum > 0.0)
+                    col = BlockKind.getCommandShade(best,
+                            Math.min(sum, 1.0));
+            }
+            if (col != run) {
+                if (run != null) {
+                    g.setColor(run);
+                    g.fillRect(runStart, top, x-runStart, v.rowHeight);
+                }
+                run = col;
+                runStart = x;
+            }
+        }
+    }
+
+    /* Outlines every block of the selected transaction that is
+       in the window, on all of the busses */
+    private void paintSelectedTransaction(Graphics g) {
+        if (selectedTransaction < 0)
+            return;
+        g.setColor(Color.black);
+
+        // the commands are looked up again once the index changed.
+        // A load indexes them once it is done.
+        TransactionIndex ix = transIndex;
+        if (ix == null)
+            return;
+        if (selectedCommands == null || selectedFrom != ix ||
+                selectedFromSize != ix.size()) {
+            selectedCommands = ix.getCommands(selectedTransaction);
+            selectedFrom = ix;
+            selectedFromSize = ix.size();
+        }
+
+        PaintView v = getView();
+        for (int i=0; i < selectedCommands.length; i++) {
+            long p = selectedCommands[i];
+            if (timeBlocks.isCommandsOnly()) {
+                deriveBlocks(timeBlocks, p, derived);
+                for (int k=0; k < derived.size(); k++)
+                    drawSelection(g, v, derived, k);
+            } else {
+                // the blocks of a command follow it in the store
+                long end = p+1;
+                while (end < timeBlocks.size() &&
+                        timeBlocks.getType(end) == NONE)
+                    end++;
+                for (long q=p; q < end; q++)
+                    drawSelection(g, v, timeBlocks, q);
+            }
+        }
+    }
+
+    /* draws a double outline around block i of s where
+       drawTimeBlock puts it in view v, if it is in the window */
+    private void drawSelection(Graphics g, PaintView v, BlockSource s,
+            long i) {
+        if (s.getEndTime(i) <= v.timingStartTime ||
+                s.getStartTime(i) >= v.timingEndTime ||
+                (v.viewChannel >= 0 && s.getChannel(i) != v.viewChannel))
+            return;
+        int x = v.timeToX(s.getStartTime(i), viewX);
+        int y = v.blockY(s.getBusID(i), s.getRank(i), s.getBank(i));
+        int w = v.blockWidth(s.getStartTime(i), s.getEndTime(i), viewX);
+        if (y < 0)
+            return;
+        g.drawRect(x-2, y-2, w+4, v.rowHeight+4);
+        g.drawRect(x-3, y-3, w+6, v.rowHeight+6);
+    }
+
     /* draws the side bar for the bar graphs */
     public void paintStatsSideBar(Graphics g) {
         // make variables global
         g.setColor(Color.black);
-        g.setFont(new Font("Arial", Font.PLAIN, 10));
+        g.setFont(SMALL_FONT);
         fontSize = g.getFont().getSize();
         int yBase = getHeight()-200;
         int yTop  = 100;
@@ -2053,7 +3038,7 @@ public class VisTool extends JPanel {
                     yBase-(int)(i*Math.ceil(yHeight/numYMajorTicks)),
                     xOffset+yMajorTickSize,
                     yBase-(int)(i*Math.ceil(yHeight/numYMajorTicks)));
-            g.drawString(String.valueOf(i*barYMajorTick),
+            g.drawString(barYLabels.get(i, barYMajorTick),
                     xOffset-40,
                     yBase-(int)(i*Math.ceil(yHeight/numYMajorTicks)));
 
@@ -2074,17 +3059,22 @@ public class VisTool extends JPanel {
 
     }
 
-    /* draws the x-axis */
-    /* FIX FOR  TIMING DIAGRAM AXIS */
-    public void paintXAxis(Graphics g, int xOffset,
+    /* draws the x-axis over the window, only the part in the clip.
+       The ticks of the timing diagram are spread out as it is
+       zoomed out, so their number stays about the same.  The axis
+       starts at xOffset, which is far left of g when it is a
+       picture of the diagram far into it. */
+    public void paintXAxis(Graphics g, PaintView v, long xOffset,
             int yBase, boolean ticksUp) {
         int xMajorTickSize = 20;
         int xMinorTickSize = 10;
         double xMajorTick;
         double xMinorTick;
         double pixelsPerNS;
-        int xTickPixels;// = (int)(barXMinorTick*pixelsPerNanoSecond);
-        double t = timingEndTime-timingStartTime;
+        TickLabels majorLabels;
+        TickLabels minorLabels;
+        int xTickPixels;// = (int)(barXMinorTick*v.pixelsPerNanoSecond);
+        double t = v.timingEndTime-v.timingStartTime;
         int sign;
 
         // do the ticks go up or down from the axis?
@@ -2094,68 +3084,461 @@ public class VisTool extends JPanel {
             sign = 1;
 
         // choose which scale to use
-        switch (displayContent) {
+        switch (v.displayContent) {
             case TIMING_DIAG:
             case TIMING_DIAG_EXP_BANK:
             case TIMING_DIAG_EXP_UTIL:
             case TIMING_DIAG_EXP_ALL:
-                xMajorTick = timingXMajorTick;
-                xMinorTick = timingXMinorTick;
-                pixelsPerNS = pixelsPerNanoSecond;
+                xMajorTick = getTickStep(v.timingXMajorTick,
+                        v.pixelsPerNanoSecond, MIN_MAJOR_TICK_PIXELS);
+                xMinorTick = getTickStep(v.timingXMinorTick,
+                        v.pixelsPerNanoSecond, MIN_MINOR_TICK_PIXELS);
+                pixelsPerNS = v.pixelsPerNanoSecond;
+                majorLabels = timingMajorLabels;
+                minorLabels = timingMinorLabels;
                 break;
             default:
             case STATS_GRAPH:
-                xMajorTick = barXMajorTick;
-                xMinorTick = barXMinorTick;
-                pixelsPerNS = barPixelsPerNS;
+                xMajorTick = v.barXMajorTick;
+                xMinorTick = v.barXMinorTick;
+                pixelsPerNS = v.barPixelsPerNS;
+                majorLabels = barMajorLabels;
+                minorLabels = barMinorLabels;
                 break;
         }
         // determine the pixels in one tick
         xTickPixels = (int)(xMinorTick*pixelsPerNS);
 
-        g.setFont(new Font("Arial", Font.PLAIN, 10));
-        fontSize = g.getFont().getSize();
+        g.setFont(SMALL_FONT);
+        int fontSize = g.getFont().getSize();
+
+        // the part of the axis in the clip, and left of it as far
+        // as a label can reach into it
+        long left = xOffset;
+        long right = xOffset+(long)(t*pixelsPerNS);
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            left = Math.max(left, clip.x-LABEL_MARGIN);
+            right = Math.min(right, clip.x+clip.width);
+        }
+        if (left > right || xMajorTick <= 0 || xMinorTick <= 0)
+            return;
 
-        g.drawLine(xOffset,
+        g.drawLine(clampX(left),
                 yBase,
-                (int)(xOffset+t*pixelsPerNanoSecond),
+                clampX(right),
                 yBase);
 
         // draw and label major ticks
-        for (int i=0;i<getNumXMajorTicks();i++) {
-            g.drawLine(xOffset+(int)(i*xMajorTick*pixelsPerNS),
+        double majorPixels = xMajorTick*pixelsPerNS;
+        long last = (long)Math.min(Math.floor(t/xMajorTick),
+                Math.floor((right-xOffset)/majorPixels));
+        for (long i=(long)Math.ceil((left-xOffset)/majorPixels);i<=last;i++) {
+            int tickOffset = clampX(xOffset+
+                    (long)(i*xMajorTick*pixelsPerNS));
+            g.drawLine(tickOffset,
                     yBase,
-                    xOffset+(int)(i*xMajorTick*pixelsPerNS),
+                    tickOffset,
                     yBase+sign*xMajorTickSize);
-            g.drawString(String.valueOf(i*xMajorTick),
-                    xOffset+(int)(i*xMajorTick*pixelsPerNS),
+            g.drawString(majorLabels.get(i, xMajorTick),
+                    tickOffset,
                     yBase+fontSize);
 
         }
 
         // draw and label minor ticks
-        for (int i=0;i<getNumXMinorTicks();i++) {
-            int tickOffset = xOffset+
-                    (int)(i*xMinorTick*pixelsPerNS);
+        double minorPixels = xMinorTick*pixelsPerNS;
+        last = (long)Math.min(Math.floor(t/xMinorTick),
+                Math.floor((right-xOffset)/minorPixels));
+        for (long i=(long)Math.ceil((left-xOffset)/minorPixels);i<=last;i++) {
+            int tickOffset = clampX(xOffset+
+                    (long)(i*xMinorTick*pixelsPerNS));
 
             g.setColor(Color.black);
             g.drawLine(tickOffset,yBase,
                     tickOffset,yBase+sign*xMinorTickSize);
             // is the tick size small enough to label the minor ticks?
-            if (String.valueOf(i*xMinorTick).length()*fontSize <
-                    xTickPixels) {
-                g.drawString(String.valueOf(i*xMinorTick),
-                        xOffset+
-                        (int)(i*xMinorTick*pixelsPerNS),
+            String label = minorLabels.get(i, xMinorTick);
+            if (label.length()*fontSize < xTickPixels) {
+                g.drawString(label,
+                        tickOffset,
                         yBase-sign*fontSize);
             }
         }
     }
 
+    /* The step of the ticks of an axis at a zoom: the step that is
+       set, or that step times 2, 5 or 10 times a power of ten, the
+       smallest that puts the ticks at least minPixels apart */
+    private static double getTickStep(double step, double pixelsPerNS,
+            int minPixels) {
+        if (step <= 0 || pixelsPerNS <= 0)
+            return step;
+        double scale = 1;
+        while (true) {
+            if (step*scale*pixelsPerNS >= minPixels)
+                return step*scale;
+            if (step*scale*2*pixelsPerNS >= minPixels)
+                return step*scale*2;
+            if (step*scale*5*pixelsPerNS >= minPixels)
+                return step*scale*5;
+            scale = scale*10;
+        }
+    }
+
+    /* Resizes the side bar to a height.  It is only laid out again
+       when the height changed, with the view or the number of
+       ranks and banks. */
+    private void setLabelAreaHeight(int h) {
+        if (h == labelAreaHeight)
+            return;
+        labelAreaHeight = h;
+        busLabelArea.setPreferredSize(new Dimension(busLabelAreaWidth, h));
+        busLabelArea.revalidate();
+    }
+
+    // the font of the side bar, made again if its size changed
+    private Font getBusLabelFont() {
+        if (busLabelFont == null || busLabelFont.getSize() != busLabelFontSize)
+            busLabelFont = new Font("Arial", Font.PLAIN, busLabelFontSize);
+        return busLabelFont;
+    }
+
+    // side bar label of a bank, made once per rank and bank
+    private String getBankLabel(int rank, int bank) {
+        if (rank >= bankLabels.length || bank >= bankLabels[rank].length) {
+            bankLabels = new String[Math.max(rank+1, num_rank)]
+                    [Math.max(bank+1, num_bank)];
+        }
+        if (bankLabels[rank][bank] == null)
+            bankLabels[rank][bank] = "  Rank[" + rank + "] Bank[" + bank + "]";
+        return bankLabels[rank][bank];
+    }
+
+    // side bar label of the utilization of a rank
+    private String getRankLabel(int rank) {
+        if (rank >= rankLabels.length)
+            rankLabels = new String[Math.max(rank+1, num_rank)];
+        if (rankLabels[rank] == null)
+            rankLabels[rank] = "     Util: Rank[" + rank + "]";
+        return rankLabels[rank];
+    }
+
+    // The view the timing diagram or stats graph is painted of: the
+    // zoom, the time window, the layout of the rows and the scales
+    // of the bar graph.  It is copied from VisTool on the event
+    // thread, into fields named after the ones they come from, so
+    // the tiles painted on the pool only read the copy.  getView()
+    // marks a copy as no longer current once VisTool has changed,
+    // which the pool reads to stop painting tiles nobody wants.
+    class PaintView {
+        int displayContent;
+        double pixelsPerNanoSecond;
+        double barPixelsPerNS;
+        double timingStartTime;
+        double timingEndTime;
+        int colSpacing;
+        int rowHeight;
+        int rowSpacing;
+        int num_rank;
+        int num_bank;
+        double clockPeriod;
+        int viewChannel;
+        LaneIndex lanes;        // lanes of the blocks, if indexed
+        double timingXMajorTick;
+        double timingXMinorTick;
+        boolean[] statsCommandMask;
+        int barYScale;
+        double barXMajorTick;
+        double barXMinorTick;
+        boolean INPUT_READ;
+        int height;             // of VisTool, the stats graph is laid
+                                //   out by
+        Color background;       // of the drawing area
+        Vector<Integer> statsVector; // only changed between beginChange()
+                                //   and endChange() of the tiles
+        volatile boolean current = true; // see isCurrent()
+
+        PaintView() {
+            displayContent = VisTool.this.displayContent;
+            pixelsPerNanoSecond = VisTool.this.pixelsPerNanoSecond;
+            barPixelsPerNS = VisTool.this.barPixelsPerNS;
+            timingStartTime = VisTool.this.timingStartTime;
+            timingEndTime = VisTool.this.timingEndTime;
+            colSpacing = VisTool.this.colSpacing;
+            rowHeight = VisTool.this.rowHeight;
+            rowSpacing = VisTool.this.rowSpacing;
+            num_rank = VisTool.this.num_rank;
+            num_bank = VisTool.this.num_bank;
+            clockPeriod = VisTool.this.clockPeriod;
+            viewChannel = VisTool.this.viewChannel;
+            lanes = getLanes();
+            timingXMajorTick = VisTool.this.timingXMajorTick;
+            timingXMinorTick = VisTool.this.timingXMinorTick;
+            statsCommandMask = VisTool.this.statsCommandMask.clone();
+            barYScale = VisTool.this.barYScale;
+            barXMajorTick = VisTool.this.barXMajorTick;
+            barXMinorTick = VisTool.this.barXMinorTick;
+            INPUT_READ = VisTool.this.INPUT_READ;
+            height = VisTool.this.getHeight();
+            background = drawingArea.getBackground();
+            statsVector = VisTool.this.statsVector;
+        }
+
+        // is this still the view shown, as getView() last found?
+        // Read on the pool as well.
+        boolean isCurrent() {
+            return current;
+        }
+
+        // is VisTool still as it was copied?  Only on the event
+        // thread.
+        boolean matches() {
+            return displayContent == VisTool.this.displayContent &&
+                    pixelsPerNanoSecond == VisTool.this.pixelsPerNanoSecond &&
+                    barPixelsPerNS == VisTool.this.barPixelsPerNS &&
+                    timingStartTime == VisTool.this.timingStartTime &&
+                    timingEndTime == VisTool.this.timingEndTime &&
+                    colSpacing == VisTool.this.colSpacing &&
+                    rowHeight == VisTool.this.rowHeight &&
+                    rowSpacing == VisTool.this.rowSpacing &&
+                    num_rank == VisTool.this.num_rank &&
+                    num_bank == VisTool.this.num_bank &&
+                    clockPeriod == VisTool.this.clockPeriod &&
+                    viewChannel == VisTool.this.viewChannel &&
+                    lanes == getLanes() &&
+                    timingXMajorTick == VisTool.this.timingXMajorTick &&
+                    timingXMinorTick == VisTool.this.timingXMinorTick &&
+                    Arrays.equals(statsCommandMask,
+                            VisTool.this.statsCommandMask) &&
+                    barYScale == VisTool.this.barYScale &&
+                    barXMajorTick == VisTool.this.barXMajorTick &&
+                    barXMinorTick == VisTool.this.barXMinorTick &&
+                    INPUT_READ == VisTool.this.INPUT_READ &&
+                    height == VisTool.this.getHeight() &&
+                    background.equals(drawingArea.getBackground());
+        }
+
+        // the zoom the tiles of the view are kept by
+        double getZoom() {
+            if (displayContent == STATS_GRAPH)
+                return barPixelsPerNS;
+            return pixelsPerNanoSecond;
+        }
+
+        int getContent() {
+            return displayContent;
+        }
+
+        // is the block on the channel being shown?
+        boolean inView(TimeBlock b) {
+            return viewChannel < 0 || b.getChannel() == viewChannel;
+        }
+
+        // the number of major ticks of the stats graph
+        int getNumXMajorTicks() {
+            double t = timingEndTime-timingStartTime;
+            return (int)Math.ceil(t/barXMajorTick);
+        }
+
+        // the number of minor ticks of the stats graph
+        int getNumXMinorTicks() {
+            return (int)Math.ceil((getNumXMajorTicks()
+            *barXMajorTick)/barXMinorTick);
+        }
+
+        /* Returns the top of the row a block of the given bus, rank
+           and bank is drawn in for the timing diagram of the view,
+           or -1 if the view is no timing diagram */
+        int blockY(int bus, int rank, int bank) {
+            int y_coord = -1;
+            switch (displayContent) {
+                case TIMING_DIAG:
+                    y_coord = bus*(rowHeight+rowSpacing)+rowSpacing;
+                    break;
+
+                case TIMING_DIAG_EXP_BANK:
+                    switch (bus) {
+                        case CMD_BUS:
+                            y_coord = bus*
+                                    (rowHeight+rowSpacing)+rowSpacing;
+                            break;
+                        case BANK_UTIL:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    (rank*num_rank + bank)
+                                    *(rowHeight+rowSpacing) + rowSpacing;
+                            break;
+                        default:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    (num_rank*num_bank-1)*
+                                    (rowHeight+rowSpacing) + rowSpacing;
+                            break;
+                    }
+                    break;
+
+                case TIMING_DIAG_EXP_UTIL:
+                    switch (bus) {
+                        case CMD_BUS:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    rowSpacing;
+                            break;
+                        case BANK_UTIL:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    rowSpacing;
+                            break;
+                        case DEV_UTIL:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    rank*(rowHeight+rowSpacing) +
+                                    rowSpacing;
+                            break;
+                        default:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    (num_rank-1)*(rowHeight+rowSpacing) +
+                                    rowSpacing;
+                            break;
+                    }
+                    break;
+
+                case TIMING_DIAG_EXP_ALL:
+                    switch (bus) {
+                        case CMD_BUS:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    rowSpacing;
+                            break;
+                        case BANK_UTIL:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    (rank*num_rank + bank)*
+                                    (rowHeight+rowSpacing) + rowSpacing;
+                            break;
+                        case DEV_UTIL:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    (num_rank*num_bank-1+rank)*
+                                    (rowHeight+rowSpacing) + rowSpacing;
+                            break;
+                        default:
+                            y_coord = bus*(rowHeight+rowSpacing) +
+                                    (num_rank*num_bank+num_rank-2)*
+                                    (rowHeight+rowSpacing) + rowSpacing;
+                            break;
+                    }
+                    break;
+            }
+            return y_coord;
+        }
+
+        /* Returns the baseline the transaction IDs of the commands are
+           written on, in a font of fontSize, for the timing diagram of
+           the view, or -1 if the view is no timing diagram */
+        int transIDBaseline(int fontSize) {
+            switch (displayContent) {
+                case TIMING_DIAG:
+                    return TRANS_ID*(rowHeight+rowSpacing) +
+                            rowSpacing+fontSize;
+                case TIMING_DIAG_EXP_BANK:
+                    return (TRANS_ID+num_rank*num_bank-1)*
+                            (rowHeight+rowSpacing)+rowSpacing+fontSize;
+                case TIMING_DIAG_EXP_UTIL:
+                    return (TRANS_ID+num_rank-1)*
+                            (rowHeight+rowSpacing)+rowSpacing+fontSize;
+                case TIMING_DIAG_EXP_ALL:
+                    return (TRANS_ID+num_rank*num_bank+num_rank-1)*
+                            (rowHeight+rowSpacing)+rowSpacing+fontSize;
+                default:
+                    return -1;
+            }
+        }
+
+        /* where a block starting at time t is drawn in a picture of
+           the diagram whose left edge is origin pixels from the left
+           of the diagram.  Zoomed far in a block can start far out of
+           the picture, so x is kept within MAX_COORD of it. */
+        int timeToX(double t, long origin) {
+            return clampX(colSpacing+
+                    (long)(pixelsPerNanoSecond*(t-timingStartTime))-origin);
+        }
+
+        /* the width of a block from start to end drawn at timeToX.
+           Its right edge stays where it is, or at MAX_COORD if it is
+           farther out. */
+        int blockWidth(double start, double end, long origin) {
+            long x = colSpacing+
+                    (long)(pixelsPerNanoSecond*(start-timingStartTime))-origin;
+            long w = (long)((end-start)*pixelsPerNanoSecond)-1;
+            return (int)Math.min(x+w-clampX(x), MAX_COORD-clampX(x));
+        }
+
+        // the time at x of a picture of the diagram whose left edge
+        // is origin pixels from the left of the diagram
+        double xToTime(double x, long origin) {
+            return timingStartTime+(x+origin-colSpacing)/pixelsPerNanoSecond;
+        }
+    }
+
+    // What one paint of the timing diagram writes to, so tiles can
+    // be painted on several threads at once
+    static class DiagramPaint {
+        PaintView view;             // what is painted
+        LaneIndex.Cursor cursor;    // looks up its blocks
+        Rectangle clip = new Rectangle(); // clip being painted
+        double[] coverage = new double[0]; // of the pixel columns of
+                                    //   a lane, by command
+        char[] digits = new char[11]; // an int written by drawInt
+        TilePainter.PaintTask task; // paint the tiles are for, if any
+        String error;               // found while painting, if any
+        long origin;                // pixels from the left of the
+                                    //   diagram to the left of g
+
+        DiagramPaint(PaintView v, TilePainter.PaintTask t, long o) {
+            view = v;
+            cursor = v.lanes.newCursor();
+            task = t;
+            origin = o;
+        }
+
+        // are the tiles being painted not wanted any more?
+        boolean isCancelled() {
+            return task != null && task.isCancelled();
+        }
+    }
+
+    // The labels of the ticks of an axis, i*step, kept from paint
+    // to paint until the step changes.  Only the first MAX_KEPT
+    // are kept, zoomed far in the ticks far into the window are
+    // labeled as they are drawn.
+    static class TickLabels {
+        final static int MAX_KEPT = 1<<16;
+        private boolean whole;  // the step is a whole number
+        private double step;
+        private String[] labels = new String[0];
+
+        TickLabels(boolean w) {
+            whole = w;
+        }
+
+        // tiles painted at the same time share the labels
+        synchronized String get(long i, double s) {
+            if (i >= MAX_KEPT)
+                return whole ?
+                        String.valueOf(i*(int)s) : String.valueOf(i*s);
+            if (s != step) {
+                step = s;
+                labels = new String[16];
+            }
+            if (i >= labels.length)
+                labels = Arrays.copyOf(labels, (int)Math.min(MAX_KEPT,
+                        Math.max(i+1, 2*labels.length)));
+            int k = (int)i;
+            if (labels[k] == null)
+                labels[k] = whole ?
+                        String.valueOf(i*(int)s) : String.valueOf(i*s);
+            return labels[k];
+        }
+    }
+
     /* draws the color coded command key */
     public void paintCommandKey(Graphics g, int x, int y) {
         String text;
-        g.setFont(new Font("Arial", Font.PLAIN, 10));
+        g.setFont(SMALL_FONT);
         fontSize = g.getFont().getSize();
 
         for (int i=0;i<NUM_COMMANDS;i++) {
@@ -2167,76 +3550,92 @@ public class VisTool extends JPanel {
         }
     }
 
-    /* draws the bar graphs */
-    public void paintStatsGraph(Graphics g) {
+    /* draws the bar graphs, in a picture of them from origin
+       pixels on.  Only the ticks in the clip of g are drawn, with
+       the ones a little left of it whose labels reach into it. */
+    public void paintStatsGraph(Graphics g, PaintView v, long origin) {
         // make variables global??
         g.setColor(Color.black);
-        g.setFont(new Font("Arial", Font.PLAIN, 10));
-        fontSize = g.getFont().getSize();
-        int yBase = getHeight()-200;
+        g.setFont(SMALL_FONT);
+        int fontSize = g.getFont().getSize();
+        int yBase = v.height-200;
         int yTop  = 100;
-        int xOffset = 10;
+        long xOffset = STATS_X_OFFSET-origin;
         int xMajorTickSize = 20;
         int xMinorTickSize = 10;
-        int yMajorTickSize = 20;
-        int yMinorTickSize = 10;
-        int numYMajorTicks = (int)Math.ceil(barYScale/barYMajorTick);
-        int numYMinorTicks = (int)Math.ceil(barYScale/barYMinorTick);
         int yHeight = yBase-yTop;
-        int xTickPixels = (int)(barXMinorTick*barPixelsPerNS);
+        int xTickPixels = (int)(v.barXMinorTick*v.barPixelsPerNS);
         int numBars = 0;
 
         // dtermine the number of bars appearing on the graph
         for (int q=0;q<NUM_COMMANDS;q++) {
-            if (statsCommandMask[q])
+            if (v.statsCommandMask[q])
                 numBars++;
         }
 
-        g.setFont(new Font("Arial", Font.PLAIN, 10));
-        fontSize = g.getFont().getSize();
-
         // evenly divide the bars in the allotted space
         int barWidth = xTickPixels/numBars;
         if (barWidth<1)
             return;
 
-        double t = timingEndTime-timingStartTime;
+        double t = v.timingEndTime-v.timingStartTime;
 
-        g.drawLine(xOffset,
+        g.drawLine(clampX(xOffset),
                 yBase,
-                (int)(xOffset+t*barPixelsPerNS),
+                clampX(xOffset+(long)(t*v.barPixelsPerNS)),
                 yBase);
 
+        // the part of the picture to draw, in pixels from the start
+        // of the window
+        Rectangle clip = g.getClipBounds();
+        double left = Double.NEGATIVE_INFINITY;
+        double right = Double.POSITIVE_INFINITY;
+        if (clip != null) {
+            left = clip.x-LABEL_MARGIN-xOffset;
+            right = clip.x+clip.width-xOffset;
+        }
+        double majorPixels = v.barXMajorTick*v.barPixelsPerNS;
+        double minorPixels = v.barXMinorTick*v.barPixelsPerNS;
+
         //draws axis ---> Fix to use drawXAxis function
-        for (int i=0;i<getNumXMajorTicks();i++) {
-            g.drawLine(xOffset+(int)(i*barXMajorTick*barPixelsPerNS),
+        int to = (int)Math.min(v.getNumXMajorTicks(),
+                Math.ceil(right/majorPixels)+1);
+        for (int i=(int)Math.max(0, Math.floor(left/majorPixels));
+                i<to;i++) {
+            int tickOffset = clampX(xOffset+
+                    (long)(i*v.barXMajorTick*v.barPixelsPerNS));
+            g.drawLine(tickOffset,
                     yBase,
-                    xOffset+(int)(i*barXMajorTick*barPixelsPerNS),
+                    tickOffset,
                     yBase-xMajorTickSize);
-            g.drawString(String.valueOf(i*barXMajorTick),
-                    xOffset+(int)(i*barXMajorTick*barPixelsPerNS),
+            g.drawString(barMajorLabels.get(i, v.barXMajorTick),
+                    tickOffset,
                     yBase+fontSize);
 
         }
 
         // draw minor ticks and bars
-        for (int i=0;i<getNumXMinorTicks();i++) {
-            int tickOffset = xOffset+
-                    (int)(i*barXMinorTick*barPixelsPerNS);
-
-            // draw bars
+        to = (int)Math.min(v.getNumXMinorTicks(),
+                Math.ceil(right/minorPixels)+1);
+        for (int i=(int)Math.max(0, Math.floor(left/minorPixels));
+                i<to;i++) {
+            int tickOffset = clampX(xOffset+
+                    (long)(i*v.barXMinorTick*v.barPixelsPerNS));
+
+            // draw bars, of the ticks counted so far
             int n = 0;
-            if (INPUT_READ) {
+            if (v.INPUT_READ &&
+                    (i+1)*NUM_COMMANDS <= v.statsVector.size()) {
                 for (int j=0;j<NUM_COMMANDS;j++) {
-                    if (statsCommandMask[j]) {
+                    if (v.statsCommandMask[j]) {
                         g.setColor(getCommandColor(j+1));
                         // assuming command 0 is NONE (j+1)
 
-                        int s = ((Integer)
-                        (statsVector.elementAt(i*NUM_COMMANDS+j))).intValue();
+                        int s = v.statsVector.
+                                elementAt(i*NUM_COMMANDS+j).intValue();
 
                         double f =
-                                Math.min(barYScale,s)/((double)(barYScale));
+                                Math.min(v.barYScale,s)/((double)(v.barYScale));
 
                         int h = (int)(f*yHeight);
 
@@ -2253,45 +3652,179 @@ public class VisTool extends JPanel {
             g.setColor(Color.black);
             g.drawLine(tickOffset,yBase,
                     tickOffset,yBase-xMinorTickSize);
-            if (String.valueOf(i*barXMinorTick).length()*fontSize <
-                    xTickPixels) {
-                g.drawString(String.valueOf(i*barXMinorTick),
-                        xOffset+
-                        (int)(i*barXMinorTick*barPixelsPerNS),
+            String label = barMinorLabels.get(i, v.barXMinorTick);
+            if (label.length()*fontSize < xTickPixels) {
+                g.drawString(label,
+                        tickOffset,
                         yBase+fontSize);
             }
 
         }
     }
 
-    // converts a mouse click to a time
+    // converts a mouse click to a time, the inverse of where
+    // drawTimeBlock puts a block
     public double clickToTime(double x) {
-        double t = timingEndTime-timingStartTime;
-        double f = (x-colSpacing)/((double)size.width);
-        return f*t;
+        return getView().xToTime(x, viewX);
     }
 
-    // searchs timeBlockVector and returns the transaction ID
-    public int findTransactionAtTime(double t) {
-        // Fix this to be binary search!
-        TimeBlock b;
-        for (int i=0;i<timeBlockVector.size();i++) {
-            b=(TimeBlock)timeBlockVector.elementAt(i);
-            if (b.getStartTime() <= t &&
-                    b.getEndTime()   >= t) {
-                return i;
+    /* Returns the block drawn at a point of the timing diagram, or
+       null.  Only the lanes of the row under the point are looked
+       at, and in each of them only the blocks that can start at or
+       before the time, latest first.  The TimeBlock is only good
+       until the next lookup. */
+    public TimeBlock findBlockAt(int x, int y) {
+        if (displayContent == INTRO || displayContent == STATS_GRAPH)
+            return null;
+        double t = clickToTime(x);
+        if (t < timingStartTime || t > timingEndTime)
+            return null;
+
+        // the lanes drawn last are on top
+        PaintView v = getView();
+        LaneIndex lanes = v.lanes;
+        for (int i=lanes.getNumLanes()-1; i >= 0; i--) {
+            LaneIndex.Lane l = lanes.getLane(i);
+            int top = v.blockY(l.getBus(), l.getRank(), l.getBank());
+            if (y < top || y >= top+rowHeight)
+                continue;
+
+            long first = lanes.firstEndingAfter(l, t);
+            for (long q=lanes.firstAtOrAfter(l, Math.nextUp(t))-1;
+                    q >= first; q--) {
+                TimeBlock b = lanes.getBlock(l, q);
+                if (b.getStartTime() <= t && b.getEndTime() >= t &&
+                        v.inView(b))
+                    return b;
             }
         }
-        return -1;
+        return null;
+    }
+
+    /* The tool tip of the block at a point of the timing diagram */
+    public String getBlockToolTip(int x, int y) {
+        TimeBlock b = findBlockAt(x, y);
+        if (b == null)
+            return null;
+
+        String channel = "";
+        if (numChannels > 1)
+            channel = "Channel = "+b.getChannel()+"<br>";
+        return "<html><b>Transaction "+b.getID()+"</b> ("+
+                b.getStr()+")<br>"+
+                "Trans. Start time = "+(int)b.getTransactionStartTime()+
+                " ns<br>"+
+                "Trans. End time = "+(int)b.getTransactionEndTime()+
+                " ns<br>"+
+                "Block Start time = "+(int)b.getStartTime()+" ns<br>"+
+                "Block End time = "+(int)b.getEndTime()+" ns<br>"+
+                channel+
+                "Rank   = "+b.getRank()+"<br>"+
+                "Bank   = "+b.getBank()+"<br>"+
+                "Row    = "+b.getRow()+"<br>"+
+                "Column = "+b.getCol()+"</html>";
+    }
+
+    /* Highlights the transaction of the block at a point, or
+       clears the highlight if there is no block there */
+    public void selectTransactionAt(int x, int y) {
+        TimeBlock b = findBlockAt(x, y);
+        setSelectedTransaction(b == null ? -1 : b.getID());
+    }
+
+    /* Highlights transaction id and scrolls to its first command,
+       moving the time window there if it is outside of it.
+       Returns false if there is no such transaction. */
+    public boolean goToTransaction(int id) {
+        if (transIndex == null) {
+            displayInfoMessage("Go to Transaction",
+                    "The transactions are still being indexed.");
+            return false;
+        }
+        long[] commands = transIndex.getCommands(id);
+        if (commands.length == 0) {
+            displayErrorMessage("Go to Transaction",
+                    "There is no transaction "+id+".");
+            return false;
+        }
+
+        // the commands are in time order
+        double t = timeBlocks.getTransactionStartTime(commands[0]);
+        if (t < timingStartTime || t >= timingEndTime) {
+            double w = timingEndTime-timingStartTime;
+            timingStartTime = t-w/2;
+            timingEndTime = timingStartTime+w;
+            recreateStatsVector();
+            repaintDrawingArea();
+            // the new window may go beyond the slice loaded
+            reloadWindow();
+        }
+
+        setSelectedTransaction(id);
+        setViewX(colSpacing+(long)(pixelsPerNanoSecond*
+                (t-timingStartTime))-drawingArea.getWidth()/2);
+        return true;
+    }
+
+    // highlights a transaction, -1 for none
+    public void setSelectedTransaction(int id) {
+        selectedTransaction = id;
+        selectedCommands = null;
+        drawingArea.repaint();
+    }
+
+    public int getSelectedTransaction() {
+        return selectedTransaction;
     }
 
     // Listen for mouse clicks and take appropriate action
     class MyMouseListener extends MouseAdapter implements MouseListener {
-        // Do nothing while button is down
-        public void mousePressed(MouseEvent e) { }
+        private int pressX;             // where the button went down,
+        private int pressY;             //   on the screen
+        private long pressViewX;        // viewX then
+        private Rectangle pressVisible = // part of the tool shown
+                new Rectangle();        //   then
+        private Rectangle dragVisible = // part to show while dragging
+                new Rectangle();
+        private boolean dragging;       // the mouse moved far enough
+
+        // remember where a drag may start
+        public void mousePressed(MouseEvent e) {
+            pressX = e.getXOnScreen();
+            pressY = e.getYOnScreen();
+            pressViewX = viewX;
+            computeVisibleRect(pressVisible);
+            dragging = false;
+        }
+
+        // dragging pans the view, across and up and down
+        public void mouseDragged(MouseEvent e) {
+            if (!SwingUtilities.isLeftMouseButton(e) ||
+                    displayContent == INTRO)
+                return;
+            int dx = e.getXOnScreen()-pressX;
+            int dy = e.getYOnScreen()-pressY;
+            if (!dragging && Math.abs(dx)+Math.abs(dy) < DRAG_PIXELS)
+                return;
+            if (!dragging) {
+                dragging = true;
+                drawingArea.setCursor(
+                        Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
+            }
+            setViewX(pressViewX-dx);
+            dragVisible.setBounds(pressVisible);
+            dragVisible.y = dragVisible.y-dy;
+            scrollRectToVisible(dragVisible);
+        }
 
         // Action when mouse is released
         public void mouseReleased(MouseEvent e) {
+            // the end of a drag is not a click
+            if (dragging) {
+                dragging = false;
+                drawingArea.setCursor(null);
+                return;
+            }
 
             // determine the keys for zooming
             String modText = e.getMouseModifiersText(e.getModifiers());
@@ -2318,48 +3851,32 @@ public class VisTool extends JPanel {
                  */
                 zoomOut(e.getX(),e.getY());
             } else {
-                // display transaction info
-                double t = clickToTime(e.getX());
-                int p = findTransactionAtTime(t);
-                String toolTipText;
-                if (p != -1) {
-                    TimeBlock b = (TimeBlock)timeBlockVector.elementAt(p);
-                    int tid = b.getID();
-                    int rank = b.getRank();
-                    int bank = b.getBank();
-                    int row  = b.getRow();
-                    int col = b.getCol();
-                    double start = b.getStartTime();
-                    double end = b.getEndTime();
-                    double tStart = b.getTransactionStartTime();
-                    double tEnd = b.getTransactionEndTime();
-                    toolTipText
-                            = new String("Transaction "+tid+":\n"+
-                            "Trans. Start time = "+ (int)tStart+" ns\n"+
-                            "Trans. End time = "+ (int)tEnd+" ns\n"+
-                            "Block Start time = "+ (int)start +" ns\n"+
-                            "Block End time = "+ (int)end+" ns\n"+
-                            "Rank   = "+rank+"\n"+
-                            "Bank   = "+bank+"\n"+
-                            "Row    = "+row+"\n"+
-                            "Column = "+col+"\n");
-
-                    displayInfoMessage
-                            ("Transaction Info",
-                            toolTipText);
-
+                // the transaction info is the tool tip of the block,
+                // a click highlights all of its blocks
+                selectTransactionAt(e.getX(),e.getY());
+            }
+        }
 
-                } else {
-                    toolTipText
-                            = new String("No Transaction"+
-                            "at time "+(int)t+" ns.");
-                    /*
-                      displayErrorMessage("Nothing!",
-                      "Nothing here!");
-                     */
-                }
-                //showToolTip(toolTipText,e.getX(), e.getY());
-                //}
+        // the wheel scrolls the tool up and down, with shift it
+        // scrolls the diagram across.  With ctrl, or when there is
+        // nothing to scroll up and down, it zooms at the mouse.
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            if (e.isShiftDown()) {
+                if (hScroll.isVisible())
+                    hScroll.setValue(hScroll.getValue()+
+                            e.getUnitsToScroll()*hScroll.getUnitIncrement());
+            } else if (e.isControlDown() ||
+                    getVisibleRect().height >= getHeight()) {
+                zoomAt(Math.pow(WHEEL_ZOOM, -e.getPreciseWheelRotation()),
+                        e.getX());
+            } else {
+                // the drawing area takes the wheel from the scroll
+                // pane around the tool, so hand it on
+                Container sp = SwingUtilities.getAncestorOfClass(
+                        JScrollPane.class, VisTool.this);
+                if (sp != null)
+                    sp.dispatchEvent(SwingUtilities.convertMouseEvent(
+                            drawingArea, e, sp));
             }
         }
     }
@@ -2438,6 +3955,84 @@ public class VisTool extends JPanel {
         );
         fileMenu.add(inputItem);
 
+        // Input only the commands in the time window
+        JMenuItem inputWindowItem = new JMenuItem("Input time window");
+        inputWindowItem.setMnemonic('W');
+        inputWindowItem.addActionListener(
+                new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                try {
+                    sv.inputWindow();
+                } catch (IOException ioex) {
+                    JOptionPane.showMessageDialog
+                            (sv,
+                            "File Input Error.",
+                            " ",
+                            JOptionPane.ERROR_MESSAGE);
+                } catch (NullPointerException NPex) {
+                    // Cancel selected, do nothing
+                }
+            }
+        }
+        );
+        fileMenu.add(inputWindowItem);
+
+        // Follow a file the simulator is still writing
+        JMenuItem followItem = new JMenuItem("Follow data file");
+        followItem.setMnemonic('F');
+        followItem.addActionListener(
+                new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                try {
+                    sv.followFile();
+                } catch (IOException ioex) {
+                    JOptionPane.showMessageDialog
+                            (sv,
+                            "File Input Error.",
+                            " ",
+                            JOptionPane.ERROR_MESSAGE);
+                } catch (NullPointerException NPex) {
+                    // Cancel selected, do nothing
+                }
+            }
+        }
+        );
+        fileMenu.add(followItem);
+
+        // Stop following
+        JMenuItem stopFollowItem = new JMenuItem("Stop following");
+        stopFollowItem.setMnemonic('S');
+        stopFollowItem.addActionListener(
+                new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                sv.stopFollowing();
+            }
+        }
+        );
+        fileMenu.add(stopFollowItem);
+
+        // Convert a text data file to a binary trace
+        JMenuItem convertItem = new JMenuItem("Convert data file to binary");
+        convertItem.setMnemonic('C');
+        convertItem.addActionListener(
+                new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                try {
+                    sv.convertToBinary();
+                } catch (IOException ioex) {
+                    JOptionPane.showMessageDialog
+                            (sv,
+                            "File Convert Error.",
+                            " ",
+                            JOptionPane.ERROR_MESSAGE);
+                } catch (NullPointerException NPex) {
+                    // Cancel selected, do nothing
+                }
+            }
+        }
+        );
+        fileMenu.add(convertItem);
+
         // Input parameters
         JMenuItem inputParamItem = new JMenuItem("Load DRAM parameters");
         inputParamItem.setMnemonic('L');
@@ -2536,6 +4131,45 @@ public class VisTool extends JPanel {
         );
         dataMenu.add(barItem);
 
+        // Error limit of loads
+        final JMenuItem errorLimitItem = new JMenuItem("Input Error Limit");
+        errorLimitItem.setMnemonic('E');
+        errorLimitItem.addActionListener(
+                new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                sv.openErrorLimitDialog();
+            }
+        }
+        );
+        dataMenu.add(errorLimitItem);
+
+        // Keep blocks off the heap
+        final JCheckBoxMenuItem offHeapItem =
+                new JCheckBoxMenuItem("Always Keep Blocks Off Heap",
+                        BlockStore.isAlwaysOffHeap());
+        offHeapItem.setMnemonic('K');
+        offHeapItem.addActionListener(
+                new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                BlockStore.setAlwaysOffHeap(offHeapItem.isSelected());
+            }
+        }
+        );
+        dataMenu.add(offHeapItem);
+
+        // Keep only the commands
+        final JCheckBoxMenuItem deriveItem =
+                new JCheckBoxMenuItem("Derive Blocks When Drawn", false);
+        deriveItem.setMnemonic('W');
+        deriveItem.addActionListener(
+                new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                sv.setDeriveBlocks(deriveItem.isSelected());
+            }
+        }
+        );
+        dataMenu.add(deriveItem);
+
         //
         // View subselections
         //
@@ -2637,6 +4271,37 @@ public class VisTool extends JPanel {
         );
         zoomMenu.add(zoomOutItem);
 
+        // Jump to a transaction and highlight it
+        final JMenuItem transItem = new JMenuItem("Go to Transaction");
+        transItem.setMnemonic('G');
+        transItem.addActionListener(
+                new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                sv.openTransactionDialog();
+            }
+        }
+        );
+        zoomMenu.add(transItem);
+
+        // Keep the newest data in view while following a file
+        final JCheckBoxMenuItem autoScrollItem =
+                new JCheckBoxMenuItem("Auto-scroll when following", true);
+        autoScrollItem.setMnemonic('U');
+        autoScrollItem.addActionListener(
+                new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                sv.setAutoScroll(autoScrollItem.isSelected());
+            }
+        }
+        );
+        zoomMenu.add(autoScrollItem);
+
+        // Show one channel or all of them
+        JMenu channelMenu = new JMenu("Channel");
+        channelMenu.setMnemonic('N');
+        sv.setChannelMenu(channelMenu);
+        zoomMenu.add(channelMenu);
+
         //
         // Help subselections
         //
@@ -2651,9 +4316,14 @@ public class VisTool extends JPanel {
                 sv.displayInfoMessage
                         ("Help",
                         "Shortcut Keys:\n"+
+                        "Mouse Click - Highlight Transaction\n"+
                         "Ctrl+Mouse Click - Center Scroll Pane\n"+
                         "Shift+Mouse Click - Zoom In\n"+
-                        "Alt+Mouse Click - Zoom Out"//,
+                        "Alt+Mouse Click - Zoom Out\n"+
+                        "Mouse Wheel - Scroll Up and Down\n"+
+                        "Ctrl+Mouse Wheel - Zoom In and Out at the Mouse\n"+
+                        "Shift+Mouse Wheel - Scroll Across\n"+
+                        "Mouse Drag - Move the View"//,
                         /*JOptionPane.INFORMATION_MESSAGE*/);
             }
         }